@@ -0,0 +1,242 @@
+package io.confluent.developer.benchmarks;
+
+import io.confluent.developer.avro.CustomerEvent;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.utils.Data;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchemaProvider;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.entities.SchemaReference;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaProvider;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializerConfig;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializerConfig;
+import io.confluent.kafka.serializers.protobuf.KafkaProtobufDeserializer;
+import io.confluent.kafka.serializers.protobuf.KafkaProtobufSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of the four multi-event approaches used in this project: an Avro union topic,
+ * an Avro record wrapping the union, a Protobuf {@code oneof} and a JSON Schema {@code oneOf}.
+ * Each invocation handles one Purchase and one PageView so the numbers reflect a mixed topic.
+ * The Avro union and JSON Schema topics are set up like {@code registerSchemasTask} and written like
+ * {@code DataProducer} does, against the registered {@code all_events} schemas with {@code use.latest.version}.
+ * Run with {@code ./gradlew jmh}, the gc profiler reports the allocation rate and the payload
+ * sizes are printed once during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiEventSerializationBenchmark {
+
+    private static final String AVRO_TOPIC = "avro-events";
+    private static final String AVRO_WRAPPED_TOPIC = "avro-events-wrapped";
+    private static final String PROTO_TOPIC = "proto-events";
+    private static final String JSON_TOPIC = "json-events";
+
+    private KafkaAvroSerializer avroUnionSerializer;
+    private KafkaAvroSerializer avroSerializer;
+    private KafkaAvroDeserializer avroDeserializer;
+    private KafkaProtobufSerializer<io.confluent.developer.proto.CustomerEvent> protobufSerializer;
+    private KafkaProtobufDeserializer<io.confluent.developer.proto.CustomerEvent> protobufDeserializer;
+    private KafkaJsonSchemaSerializer<Object> jsonSchemaSerializer;
+    private KafkaJsonSchemaDeserializer<Object> jsonSchemaDeserializer;
+
+    private Purchase avroPurchase;
+    private PageView avroPageView;
+    private CustomerEvent avroWrappedPurchase;
+    private CustomerEvent avroWrappedPageView;
+    private io.confluent.developer.proto.CustomerEvent protoPurchase;
+    private io.confluent.developer.proto.CustomerEvent protoPageView;
+    private io.confluent.developer.json.Purchase jsonPurchase;
+    private io.confluent.developer.json.PageView jsonPageView;
+
+    private byte[] avroPurchaseBytes;
+    private byte[] avroPageViewBytes;
+    private byte[] avroWrappedPurchaseBytes;
+    private byte[] avroWrappedPageViewBytes;
+    private byte[] protoPurchaseBytes;
+    private byte[] protoPageViewBytes;
+    private byte[] jsonPurchaseBytes;
+    private byte[] jsonPageViewBytes;
+
+    @Setup
+    public void setUp() throws IOException, RestClientException {
+        SchemaRegistryClient client = new MockSchemaRegistryClient(
+                List.of(new AvroSchemaProvider(), new ProtobufSchemaProvider(), new JsonSchemaProvider()));
+        registerUnionSchema(client);
+        registerJsonSchemas(client);
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("schema.registry.url", "mock://benchmark");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
+        configs.put(KafkaJsonSchemaDeserializerConfig.TYPE_PROPERTY, "javaTypeName");
+
+        Map<String, Object> unionConfigs = new HashMap<>(configs);
+        unionConfigs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
+        unionConfigs.put(KafkaAvroSerializerConfig.USE_LATEST_VERSION, true);
+        avroUnionSerializer = new KafkaAvroSerializer(client, unionConfigs);
+        avroSerializer = new KafkaAvroSerializer(client, configs);
+        avroDeserializer = new KafkaAvroDeserializer(client, configs);
+        protobufSerializer = new KafkaProtobufSerializer<>(client, configs);
+        protobufDeserializer = new KafkaProtobufDeserializer<>(client, configs, io.confluent.developer.proto.CustomerEvent.class);
+        Map<String, Object> jsonConfigs = new HashMap<>(configs);
+        jsonConfigs.put(KafkaJsonSchemaSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
+        jsonConfigs.put(KafkaJsonSchemaSerializerConfig.USE_LATEST_VERSION, true);
+        jsonConfigs.put(KafkaJsonSchemaSerializerConfig.LATEST_COMPATIBILITY_STRICT, false);
+        jsonSchemaSerializer = new KafkaJsonSchemaSerializer<>(client, jsonConfigs);
+        jsonSchemaDeserializer = new KafkaJsonSchemaDeserializer<>(client, configs);
+
+        avroPurchase = Data.avroPurchase();
+        avroPageView = Data.avroPageView();
+        avroWrappedPurchase = CustomerEvent.newBuilder().setAction(avroPurchase).setId(avroPurchase.getCustomerId()).build();
+        avroWrappedPageView = CustomerEvent.newBuilder().setAction(avroPageView).setId(avroPageView.getCustomerId()).build();
+        protoPurchase = io.confluent.developer.proto.CustomerEvent.newBuilder()
+                .setPurchase(io.confluent.developer.proto.Purchase.newBuilder()
+                        .setCustomerId(avroPurchase.getCustomerId())
+                        .setAmount(avroPurchase.getAmount())
+                        .setItem(avroPurchase.getItem()))
+                .setId(avroPurchase.getCustomerId())
+                .build();
+        protoPageView = io.confluent.developer.proto.CustomerEvent.newBuilder()
+                .setPageView(io.confluent.developer.proto.PageView.newBuilder()
+                        .setCustomerId(avroPageView.getCustomerId())
+                        .setIsSpecial(avroPageView.getIsSpecial())
+                        .setUrl(avroPageView.getUrl()))
+                .setId(avroPageView.getCustomerId())
+                .build();
+        jsonPurchase = Data.jsonSchemaPurchase();
+        jsonPageView = Data.jsonSchemaPageView();
+
+        avroPurchaseBytes = avroUnionSerializer.serialize(AVRO_TOPIC, avroPurchase);
+        avroPageViewBytes = avroUnionSerializer.serialize(AVRO_TOPIC, avroPageView);
+        avroWrappedPurchaseBytes = avroSerializer.serialize(AVRO_WRAPPED_TOPIC, avroWrappedPurchase);
+        avroWrappedPageViewBytes = avroSerializer.serialize(AVRO_WRAPPED_TOPIC, avroWrappedPageView);
+        protoPurchaseBytes = protobufSerializer.serialize(PROTO_TOPIC, protoPurchase);
+        protoPageViewBytes = protobufSerializer.serialize(PROTO_TOPIC, protoPageView);
+        jsonPurchaseBytes = jsonSchemaSerializer.serialize(JSON_TOPIC, jsonPurchase);
+        jsonPageViewBytes = jsonSchemaSerializer.serialize(JSON_TOPIC, jsonPageView);
+
+        System.out.printf("%nPayload sizes in bytes (purchase/page view)%n");
+        System.out.printf("  Avro union   %d/%d%n", avroPurchaseBytes.length, avroPageViewBytes.length);
+        System.out.printf("  Avro wrapped %d/%d%n", avroWrappedPurchaseBytes.length, avroWrappedPageViewBytes.length);
+        System.out.printf("  Protobuf     %d/%d%n", protoPurchaseBytes.length, protoPageViewBytes.length);
+        System.out.printf("  JSON Schema  %d/%d%n", jsonPurchaseBytes.length, jsonPageViewBytes.length);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void serializeAvroUnion(Blackhole blackhole) {
+        blackhole.consume(avroUnionSerializer.serialize(AVRO_TOPIC, avroPurchase));
+        blackhole.consume(avroUnionSerializer.serialize(AVRO_TOPIC, avroPageView));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void deserializeAvroUnion(Blackhole blackhole) {
+        blackhole.consume(avroDeserializer.deserialize(AVRO_TOPIC, avroPurchaseBytes));
+        blackhole.consume(avroDeserializer.deserialize(AVRO_TOPIC, avroPageViewBytes));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void serializeAvroWrapped(Blackhole blackhole) {
+        blackhole.consume(avroSerializer.serialize(AVRO_WRAPPED_TOPIC, avroWrappedPurchase));
+        blackhole.consume(avroSerializer.serialize(AVRO_WRAPPED_TOPIC, avroWrappedPageView));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void deserializeAvroWrapped(Blackhole blackhole) {
+        blackhole.consume(avroDeserializer.deserialize(AVRO_WRAPPED_TOPIC, avroWrappedPurchaseBytes));
+        blackhole.consume(avroDeserializer.deserialize(AVRO_WRAPPED_TOPIC, avroWrappedPageViewBytes));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void serializeProtobuf(Blackhole blackhole) {
+        blackhole.consume(protobufSerializer.serialize(PROTO_TOPIC, protoPurchase));
+        blackhole.consume(protobufSerializer.serialize(PROTO_TOPIC, protoPageView));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void deserializeProtobuf(Blackhole blackhole) {
+        blackhole.consume(protobufDeserializer.deserialize(PROTO_TOPIC, protoPurchaseBytes));
+        blackhole.consume(protobufDeserializer.deserialize(PROTO_TOPIC, protoPageViewBytes));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void serializeJsonSchema(Blackhole blackhole) {
+        blackhole.consume(jsonSchemaSerializer.serialize(JSON_TOPIC, jsonPurchase));
+        blackhole.consume(jsonSchemaSerializer.serialize(JSON_TOPIC, jsonPageView));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void deserializeJsonSchema(Blackhole blackhole) {
+        blackhole.consume(jsonSchemaDeserializer.deserialize(JSON_TOPIC, jsonPurchaseBytes));
+        blackhole.consume(jsonSchemaDeserializer.deserialize(JSON_TOPIC, jsonPageViewBytes));
+    }
+
+    /**
+     * Same subjects and references as the {@code register} block in build.gradle
+     */
+    private static void registerUnionSchema(final SchemaRegistryClient client) throws IOException, RestClientException {
+        final String pageViewSchema = PageView.getClassSchema().toString();
+        final String purchaseSchema = Purchase.getClassSchema().toString();
+        client.register("page-view", new AvroSchema(pageViewSchema));
+        client.register("purchase", new AvroSchema(purchaseSchema));
+        client.register(AVRO_TOPIC + "-value", new AvroSchema(
+                "[\"io.confluent.developer.avro.Purchase\", \"io.confluent.developer.avro.PageView\"]",
+                List.of(new SchemaReference(PageView.getClassSchema().getFullName(), "page-view", 1),
+                        new SchemaReference(Purchase.getClassSchema().getFullName(), "purchase", 1)),
+                Map.of(PageView.getClassSchema().getFullName(), pageViewSchema,
+                        Purchase.getClassSchema().getFullName(), purchaseSchema),
+                null));
+    }
+
+    /**
+     * Same subjects and references as the JSON entries of the {@code register} block in build.gradle,
+     * read from {@code src/main/json} so the benchmark has to run from the project directory
+     */
+    private static void registerJsonSchemas(final SchemaRegistryClient client) throws IOException, RestClientException {
+        final Path dir = Path.of("src/main/json");
+        final String pageViewSchema = Files.readString(dir.resolve("page_view.json"));
+        final String purchaseSchema = Files.readString(dir.resolve("purchase.json"));
+        client.register("json-page-view", new JsonSchema(pageViewSchema));
+        client.register("json-purchase", new JsonSchema(purchaseSchema));
+        client.register(JSON_TOPIC + "-value", new JsonSchema(
+                Files.readString(dir.resolve("all_events.json")),
+                List.of(new SchemaReference("page_view.json", "json-page-view", 1),
+                        new SchemaReference("purchase.json", "json-purchase", 1)),
+                Map.of("page_view.json", pageViewSchema, "purchase.json", purchaseSchema),
+                null));
+    }
+}
@@ -0,0 +1,290 @@
+package io.confluent.developer.clients;
+
+import io.confluent.developer.utils.DeadLetterQueue;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running poll loop for a single topic.  The poll thread only fetches, records are handed off to a pool
+ * of single threaded workers with each partition pinned to one worker, so records within a partition are
+ * handled in order while partitions are processed in parallel.
+ * <p>
+ * Values arrive as bytes and are deserialized on the workers, so a record that fails to deserialize or to
+ * be handled is sent as it was read to the {@link DeadLetterQueue}, when one is given, and the partition
+ * moves on.  Without one the failure is logged and the record skipped.  If the dead letter can't be sent,
+ * the partition stops at that record and the engine shuts down, committing only the offsets before it.
+ * <p>
+ * Offsets of handled records are committed asynchronously every {@code consumer.commit.interval.ms}, and a
+ * partition is paused once more than {@code consumer.max.in.flight.per.partition} records are waiting on the
+ * workers and resumed when it drains to half of that.
+ */
+public class ConsumerEngine<V> implements Runnable, AutoCloseable {
+
+    public static final String WORKER_THREADS_CONFIG = "consumer.worker.threads";
+    public static final String MAX_IN_FLIGHT_CONFIG = "consumer.max.in.flight.per.partition";
+    public static final String COMMIT_INTERVAL_CONFIG = "consumer.commit.interval.ms";
+
+    private final String name;
+    private final Consumer<String, byte[]> consumer;
+    private final Deserializer<V> valueDeserializer;
+    private final String topic;
+    private final java.util.function.Consumer<ConsumerRecord<String, V>> handler;
+    private final ExecutorService[] workers;
+    private final int maxInFlight;
+    private final long commitIntervalMs;
+    private final DeadLetterQueue deadLetters;
+
+    private final Map<TopicPartition, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> handledOffsets = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+    private final Set<TopicPartition> failedPartitions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final ConsumerEngineMetrics metrics = new ConsumerEngineMetrics();
+    private long lastCommit;
+
+    public ConsumerEngine(final String name,
+                          final Consumer<String, byte[]> consumer,
+                          final Deserializer<V> valueDeserializer,
+                          final String topic,
+                          final java.util.function.Consumer<ConsumerRecord<String, V>> handler,
+                          final Properties properties,
+                          final DeadLetterQueue deadLetters) {
+        this.name = name;
+        this.consumer = consumer;
+        this.valueDeserializer = valueDeserializer;
+        this.topic = topic;
+        this.deadLetters = deadLetters;
+        this.handler = handler;
+        int numWorkers = Integer.parseInt(properties.getProperty(WORKER_THREADS_CONFIG, "4"));
+        this.workers = new ExecutorService[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            final String threadName = name + "-worker-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+        }
+        this.maxInFlight = Integer.parseInt(properties.getProperty(MAX_IN_FLIGHT_CONFIG, "1000"));
+        this.commitIntervalMs = Long.parseLong(properties.getProperty(COMMIT_INTERVAL_CONFIG, "5000"));
+    }
+
+    @Override
+    public void run() {
+        metrics.register(name);
+        try {
+            consumer.subscribe(Collections.singletonList(topic), new RebalanceListener());
+            lastCommit = System.currentTimeMillis();
+            while (running.get()) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(100));
+                for (TopicPartition partition : records.partitions()) {
+                    dispatch(partition, records.records(partition));
+                }
+                applyBackpressure();
+                if (System.currentTimeMillis() - lastCommit >= commitIntervalMs) {
+                    commitAsync();
+                    updateLag();
+                }
+            }
+        } catch (WakeupException e) {
+            if (running.get()) {
+                throw e;
+            }
+        } finally {
+            shutdownWorkers();
+            try {
+                consumer.commitSync(pendingOffsets());
+            } finally {
+                consumer.close();
+                valueDeserializer.close();
+                metrics.unregister();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running.set(false);
+        consumer.wakeup();
+    }
+
+    private void dispatch(final TopicPartition partition, final List<ConsumerRecord<String, byte[]>> partitionRecords) {
+        final AtomicInteger partitionInFlight = inFlight.computeIfAbsent(partition, tp -> new AtomicInteger());
+        partitionInFlight.addAndGet(partitionRecords.size());
+        workerFor(partition).execute(() -> {
+            for (ConsumerRecord<String, byte[]> record : partitionRecords) {
+                if (failedPartitions.contains(partition)) {
+                    partitionInFlight.decrementAndGet();
+                    continue;
+                }
+                final long start = System.nanoTime();
+                try {
+                    handler.accept(deserialize(record));
+                    metrics.recordHandled(System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    metrics.recordError();
+                    if (!deadLetter(record, e)) {
+                        // neither handled nor parked, nothing from here on may be committed
+                        failedPartitions.add(partition);
+                        partitionInFlight.decrementAndGet();
+                        close();
+                        continue;
+                    }
+                }
+                handledOffsets.put(partition, record.offset() + 1);
+                partitionInFlight.decrementAndGet();
+            }
+        });
+    }
+
+    private ConsumerRecord<String, V> deserialize(final ConsumerRecord<String, byte[]> record) {
+        final V value = valueDeserializer.deserialize(record.topic(), record.headers(), record.value());
+        return new ConsumerRecord<>(record.topic(), record.partition(), record.offset(), record.timestamp(),
+                record.timestampType(), record.serializedKeySize(), record.serializedValueSize(),
+                record.key(), value, record.headers(), record.leaderEpoch());
+    }
+
+    /**
+     * @return false if the record should have been dead-lettered but couldn't be
+     */
+    private boolean deadLetter(final ConsumerRecord<String, byte[]> record, final RuntimeException error) {
+        if (deadLetters == null) {
+            System.err.printf("[%s] Handling record at %s-%d-%d failed %s %n", name, record.topic(), record.partition(), record.offset(), error);
+            return true;
+        }
+        System.err.printf("[%s] Dead-lettering record at %s-%d-%d %s %n", name, record.topic(), record.partition(), record.offset(), error);
+        final byte[] key = record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8);
+        try {
+            deadLetters.send(record.topic(), record.partition(), record.offset(), key, record.value(), record.headers(), error);
+            return true;
+        } catch (KafkaException e) {
+            System.err.printf("[%s] Dead-lettering record at %s-%d-%d failed, stopping %s %n", name, record.topic(), record.partition(), record.offset(), e);
+            return false;
+        }
+    }
+
+    private void updateLag() {
+        long totalLag = 0;
+        for (TopicPartition partition : consumer.assignment()) {
+            totalLag += consumer.currentLag(partition).orElse(0);
+        }
+        metrics.updateLag(totalLag);
+    }
+
+    private ExecutorService workerFor(final TopicPartition partition) {
+        return workers[Math.floorMod(partition.hashCode(), workers.length)];
+    }
+
+    private void applyBackpressure() {
+        final List<TopicPartition> toPause = new ArrayList<>();
+        final List<TopicPartition> toResume = new ArrayList<>();
+        final var paused = consumer.paused();
+        inFlight.forEach((partition, count) -> {
+            if (!paused.contains(partition) && count.get() > maxInFlight) {
+                toPause.add(partition);
+            } else if (paused.contains(partition) && count.get() <= maxInFlight / 2) {
+                toResume.add(partition);
+            }
+        });
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> pendingOffsets() {
+        final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        handledOffsets.forEach((partition, offset) -> {
+            if (!offset.equals(committedOffsets.get(partition))) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        });
+        return offsets;
+    }
+
+    private void commitAsync() {
+        final Map<TopicPartition, OffsetAndMetadata> offsets = pendingOffsets();
+        lastCommit = System.currentTimeMillis();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        offsets.forEach((partition, offset) -> committedOffsets.put(partition, offset.offset()));
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                // a later commit covers these offsets, forget them so they're retried
+                committed.keySet().forEach(committedOffsets::remove);
+                System.err.printf("[%s] Async commit of %s failed %s %n", name, committed, exception);
+            }
+        });
+    }
+
+    private void shutdownWorkers() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            for (ExecutorService worker : workers) {
+                worker.awaitTermination(30, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitDrained(final Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            final AtomicInteger count = inFlight.get(partition);
+            while (count != null && count.get() > 0) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class RebalanceListener implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(final Collection<TopicPartition> partitions) {
+            awaitDrained(partitions);
+            final Map<TopicPartition, OffsetAndMetadata> offsets = pendingOffsets();
+            offsets.keySet().retainAll(partitions);
+            consumer.commitSync(offsets);
+            partitions.forEach(partition -> {
+                inFlight.remove(partition);
+                handledOffsets.remove(partition);
+                committedOffsets.remove(partition);
+                failedPartitions.remove(partition);
+            });
+        }
+
+        @Override
+        public void onPartitionsAssigned(final Collection<TopicPartition> partitions) {
+            partitions.forEach(partition -> inFlight.computeIfAbsent(partition, tp -> new AtomicInteger()));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.confluent.developer.clients;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle latency, throughput and lag of a {@link ConsumerEngine}.  The latency percentiles cover the
+ * last completed 30 second interval, the lag comes from the consumer's own position tracking so
+ * updating it doesn't cost a broker round trip.
+ */
+public class ConsumerEngineMetrics implements ConsumerEngineMetricsMBean {
+
+    private static final long INTERVAL_MS = 30_000;
+
+    private final LongAdder recordsHandled = new LongAdder();
+    private final LongAdder handleErrors = new LongAdder();
+    private final Recorder handleLatency = new Recorder(3);
+    private Histogram interval = handleLatency.getIntervalHistogram();
+    private long lastSwapMs = System.currentTimeMillis();
+    private volatile long totalLag;
+    private ObjectName objectName;
+
+    void register(final String engineName) {
+        try {
+            objectName = new ObjectName("io.confluent.developer:type=consumer-engine,name=" + engineName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            System.err.printf("Could not register metrics for %s %s %n", engineName, e);
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.printf("Could not unregister %s %s %n", objectName, e);
+        }
+    }
+
+    void recordHandled(final long latencyNanos) {
+        recordsHandled.increment();
+        handleLatency.recordValue(Math.max(0, latencyNanos / 1000));
+    }
+
+    void recordError() {
+        handleErrors.increment();
+    }
+
+    void updateLag(final long lag) {
+        totalLag = lag;
+    }
+
+    @Override
+    public long getRecordsHandled() {
+        return recordsHandled.sum();
+    }
+
+    @Override
+    public long getHandleErrors() {
+        return handleErrors.sum();
+    }
+
+    @Override
+    public long getTotalLag() {
+        return totalLag;
+    }
+
+    @Override
+    public double getHandleLatencyP50Micros() {
+        return snapshot().getValueAtPercentile(50.0);
+    }
+
+    @Override
+    public double getHandleLatencyP99Micros() {
+        return snapshot().getValueAtPercentile(99.0);
+    }
+
+    @Override
+    public double getHandleLatencyMaxMicros() {
+        return snapshot().getMaxValue();
+    }
+
+    private synchronized Histogram snapshot() {
+        final long now = System.currentTimeMillis();
+        if (now - lastSwapMs >= INTERVAL_MS) {
+            interval = handleLatency.getIntervalHistogram(interval);
+            lastSwapMs = now;
+        }
+        return interval;
+    }
+}
@@ -0,0 +1,19 @@
+package io.confluent.developer.clients;
+
+/**
+ * JMX view of a {@link ConsumerEngine}, registered as {@code io.confluent.developer:type=consumer-engine,name=<engine>}
+ */
+public interface ConsumerEngineMetricsMBean {
+
+    long getRecordsHandled();
+
+    long getHandleErrors();
+
+    long getTotalLag();
+
+    double getHandleLatencyP50Micros();
+
+    double getHandleLatencyP99Micros();
+
+    double getHandleLatencyMaxMicros();
+}
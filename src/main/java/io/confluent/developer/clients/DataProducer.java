@@ -5,6 +5,7 @@ import io.confluent.developer.avro.PageView;
 import io.confluent.developer.avro.Purchase;
 import io.confluent.developer.utils.Data;
 import io.confluent.developer.utils.PropertiesLoader;
+import io.confluent.developer.utils.SchemaCache;
 import io.confluent.kafka.serializers.KafkaAvroSerializer;
 import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
 import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
@@ -15,6 +16,7 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
 import java.util.ArrayList;
@@ -34,6 +36,7 @@ public class DataProducer {
         producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         var producerConfigs = new HashMap<String, Object>();
         producerProperties.forEach((k, v) -> producerConfigs.put((String) k, v));
+        SchemaCache.prewarm(producerConfigs);
 
         System.out.println("Producing records to topic with top-level Avro objects");
         produceAvroWrapped(producerConfigs);
@@ -48,9 +51,8 @@ public class DataProducer {
 
     private static void produceProtobuf(final Map<String, Object> originalConfigs) {
         Map<String, Object> producerConfigs = new HashMap<>(originalConfigs);
-        producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaProtobufSerializer.class);
-
-        try (final Producer<String, CustomerEvent> producer = new KafkaProducer<>(producerConfigs)) {
+        try (final Producer<String, CustomerEvent> producer =
+                     createProducer(producerConfigs, new KafkaProtobufSerializer<>(SchemaCache.client(producerConfigs)))) {
             String topic = (String) producerConfigs.get("proto.topic");
             List<CustomerEvent> events = new ArrayList<>();
             Purchase purchase = Data.protoPurchase();
@@ -74,8 +76,8 @@ public class DataProducer {
 
     private static void produceAvroWrapped(final Map<String, Object> originalConfigs) {
         Map<String, Object> producerConfigs = new HashMap<>(originalConfigs);
-        producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaAvroSerializer.class);
-        try (final Producer<String, CustomerEvent> producer = new KafkaProducer<>(producerConfigs)) {
+        try (final Producer<String, CustomerEvent> producer =
+                     createProducer(producerConfigs, new KafkaAvroSerializer(SchemaCache.client(producerConfigs)))) {
             String topic = (String) producerConfigs.get("avro.wrapped.topic");
             List<CustomerEvent> events = new ArrayList<>();
             Purchase purchase = Data.avroPurchase();
@@ -96,11 +98,11 @@ public class DataProducer {
 
     private static void produceAvro(final Map<String, Object> originalConfigs) {
         Map<String, Object> producerConfigs = new HashMap<>(originalConfigs);
-        producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaAvroSerializer.class);
         producerConfigs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
         producerConfigs.put(KafkaAvroSerializerConfig.USE_LATEST_VERSION, true);
 
-        try (final Producer<String, SpecificRecordBase> producer = new KafkaProducer<>(producerConfigs)) {
+        try (final Producer<String, SpecificRecordBase> producer =
+                     createProducer(producerConfigs, new KafkaAvroSerializer(SchemaCache.client(producerConfigs)))) {
             String topic = (String) producerConfigs.get("avro.topic");
             Purchase purchase = Data.avroPurchase();
             PageView pageView = Data.avroPageView();
@@ -115,12 +117,12 @@ public class DataProducer {
 
     private static void produceJsonSchema(final Map<String, Object> originalConfigs) {
         Map<String, Object> producerConfigs = new HashMap<>(originalConfigs);
-        producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaJsonSchemaSerializer.class);
         producerConfigs.put(KafkaJsonSchemaSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
         producerConfigs.put(KafkaJsonSchemaSerializerConfig.USE_LATEST_VERSION, true);
         producerConfigs.put(KafkaJsonSchemaSerializerConfig.LATEST_COMPATIBILITY_STRICT, false);
 
-        try (final Producer<String, Object> producer = new KafkaProducer<>(producerConfigs)) {
+        try (final Producer<String, Object> producer =
+                     createProducer(producerConfigs, new KafkaJsonSchemaSerializer<>(SchemaCache.client(producerConfigs)))) {
             String topic = (String) producerConfigs.get("json.topic");
             io.confluent.developer.json.Purchase purchase = Data.jsonSchemaPurchase();
             io.confluent.developer.json.PageView pageView = Data.jsonSchemaPageView();
@@ -138,4 +140,13 @@ public class DataProducer {
             }));
         }
     }
+
+    /**
+     * Serializers built on the shared {@link SchemaCache} client, the producer doesn't configure instances itself
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> Producer<String, V> createProducer(final Map<String, Object> producerConfigs, final Serializer<?> valueSerializer) {
+        valueSerializer.configure(producerConfigs, false);
+        return new KafkaProducer<>(producerConfigs, new StringSerializer(), (Serializer<V>) valueSerializer);
+    }
 }
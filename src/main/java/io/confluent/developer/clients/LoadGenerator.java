@@ -0,0 +1,244 @@
+package io.confluent.developer.clients;
+
+import io.confluent.developer.avro.CustomerEvent;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.utils.PropertiesLoader;
+import io.confluent.developer.utils.SchemaCache;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializerConfig;
+import io.confluent.kafka.serializers.protobuf.KafkaProtobufSerializer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Produces a configurable stream of Purchase and PageView events to each multi-event topic and reports
+ * the achieved rate and send latency percentiles per format.
+ * <p>
+ * All settings come from the {@code load.*} properties, anything prefixed with {@code load.producer.}
+ * is passed to the producer with the prefix removed.  Setting {@code load.mock.producer=true} together with a
+ * {@code mock://} schema registry url runs the whole thing in process without a broker.
+ */
+public class LoadGenerator {
+
+    static final String PRODUCER_PREFIX = "load.producer.";
+
+    private final Map<String, Object> baseConfigs;
+    private final int numEvents;
+    private final double eventsPerSecond;
+    private final double purchaseRatio;
+    private final boolean mockProducer;
+    private final ZipfKeys keys;
+    private final Random random = new Random();
+
+    LoadGenerator(final Properties properties) {
+        baseConfigs = new HashMap<>();
+        properties.forEach((k, v) -> {
+            String key = (String) k;
+            if (key.startsWith(PRODUCER_PREFIX)) {
+                baseConfigs.put(key.substring(PRODUCER_PREFIX.length()), v);
+            } else if (!baseConfigs.containsKey(key)) {
+                baseConfigs.put(key, v);
+            }
+        });
+        numEvents = Integer.parseInt(properties.getProperty("load.num.events", "100000"));
+        eventsPerSecond = Double.parseDouble(properties.getProperty("load.events.per.second", "0"));
+        purchaseRatio = Double.parseDouble(properties.getProperty("load.purchase.ratio", "0.2"));
+        mockProducer = Boolean.parseBoolean(properties.getProperty("load.mock.producer", "false"));
+        keys = new ZipfKeys(Integer.parseInt(properties.getProperty("load.customer.cardinality", "10000")),
+                Double.parseDouble(properties.getProperty("load.customer.skew", "1.0")),
+                random);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Must provide path to properties file for configurations");
+            System.exit(1);
+        }
+        var properties = PropertiesLoader.load(args[0]);
+        LoadGenerator loadGenerator = new LoadGenerator(properties);
+        for (String format : properties.getProperty("load.formats", "avro,avro-wrapped,proto,json").split(",")) {
+            loadGenerator.run(format.trim());
+        }
+    }
+
+    void run(final String format) {
+        Map<String, Object> producerConfigs = new HashMap<>(baseConfigs);
+        switch (format) {
+            case "avro":
+                if (!mockProducer) {
+                    producerConfigs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
+                    producerConfigs.put(KafkaAvroSerializerConfig.USE_LATEST_VERSION, true);
+                }
+                send(format, (String) producerConfigs.get("avro.topic"), producerConfigs, new KafkaAvroSerializer(SchemaCache.client(producerConfigs)),
+                        (customerId, purchase) -> purchase ? avroPurchase(customerId) : avroPageView(customerId));
+                break;
+            case "avro-wrapped":
+                send(format, (String) producerConfigs.get("avro.wrapped.topic"), producerConfigs, new KafkaAvroSerializer(SchemaCache.client(producerConfigs)),
+                        (customerId, purchase) -> CustomerEvent.newBuilder()
+                                .setAction(purchase ? avroPurchase(customerId) : avroPageView(customerId))
+                                .setId(customerId)
+                                .build());
+                break;
+            case "proto":
+                send(format, (String) producerConfigs.get("proto.topic"), producerConfigs, new KafkaProtobufSerializer<>(SchemaCache.client(producerConfigs)),
+                        (customerId, purchase) -> protoEvent(customerId, purchase));
+                break;
+            case "json":
+                if (!mockProducer) {
+                    producerConfigs.put(KafkaJsonSchemaSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
+                    producerConfigs.put(KafkaJsonSchemaSerializerConfig.USE_LATEST_VERSION, true);
+                    producerConfigs.put(KafkaJsonSchemaSerializerConfig.LATEST_COMPATIBILITY_STRICT, false);
+                }
+                send(format, (String) producerConfigs.get("json.topic"), producerConfigs, new KafkaJsonSchemaSerializer<>(SchemaCache.client(producerConfigs)),
+                        (customerId, purchase) -> purchase ? jsonPurchase(customerId) : jsonPageView(customerId));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown load format " + format);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> void send(final String format,
+                          final String topic,
+                          final Map<String, Object> producerConfigs,
+                          final Serializer<?> valueSerializer,
+                          final EventFactory<V> eventFactory) {
+        final long[] latencies = new long[numEvents];
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        final long pacingNanos = eventsPerSecond > 0 ? (long) (1_000_000_000L / eventsPerSecond) : 0;
+
+        System.out.printf("Producing %d %s events to %s %n", numEvents, format, topic);
+        long start = System.nanoTime();
+        try (Producer<String, V> producer = createProducer(producerConfigs, (Serializer<V>) valueSerializer)) {
+            long nextSend = start;
+            for (int i = 0; i < numEvents; i++) {
+                if (pacingNanos > 0) {
+                    long wait = nextSend - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    nextSend += pacingNanos;
+                }
+                final String customerId = keys.next();
+                final V event = eventFactory.create(customerId, random.nextDouble() < purchaseRatio);
+                final long sendTime = System.nanoTime();
+                producer.send(new ProducerRecord<>(topic, customerId, event), (metadata, exception) -> {
+                    if (exception != null) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[completed.getAndIncrement()] = System.nanoTime() - sendTime;
+                });
+            }
+            producer.flush();
+        }
+        long elapsed = System.nanoTime() - start;
+        report(format, latencies, completed.get(), errors.get(), elapsed);
+    }
+
+    private <V> Producer<String, V> createProducer(final Map<String, Object> producerConfigs, final Serializer<V> valueSerializer) {
+        valueSerializer.configure(producerConfigs, false);
+        if (mockProducer) {
+            return new MockProducer<>(true, new StringSerializer(), valueSerializer);
+        }
+        return new KafkaProducer<>(producerConfigs, new StringSerializer(), valueSerializer);
+    }
+
+    private static void report(final String format, final long[] latencies, final int completed, final int errors, final long elapsedNanos) {
+        long[] sorted = Arrays.copyOf(latencies, completed);
+        Arrays.sort(sorted);
+        double recordsPerSecond = completed / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("[%s] %d records (%d errors) at %.0f records/sec, send latency ms p50=%.2f p99=%.2f p99.9=%.2f max=%.2f %n",
+                format, completed, errors, recordsPerSecond,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+                percentileMillis(sorted, 0.999), percentileMillis(sorted, 1.0));
+    }
+
+    private static double percentileMillis(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static Purchase avroPurchase(final String customerId) {
+        return Purchase.newBuilder().setCustomerId(customerId).setAmount(437.83).setItem("flux-capacitor").build();
+    }
+
+    private static PageView avroPageView(final String customerId) {
+        return PageView.newBuilder().setCustomerId(customerId).setIsSpecial(true).setUrl("https://acme.commerce/sale").build();
+    }
+
+    private static io.confluent.developer.proto.CustomerEvent protoEvent(final String customerId, final boolean purchase) {
+        io.confluent.developer.proto.CustomerEvent.Builder builder = io.confluent.developer.proto.CustomerEvent.newBuilder().setId(customerId);
+        if (purchase) {
+            builder.setPurchase(io.confluent.developer.proto.Purchase.newBuilder()
+                    .setCustomerId(customerId).setAmount(437.83).setItem("flux-capacitor"));
+        } else {
+            builder.setPageView(io.confluent.developer.proto.PageView.newBuilder()
+                    .setCustomerId(customerId).setIsSpecial(true).setUrl("https://acme.commerce/sale"));
+        }
+        return builder.build();
+    }
+
+    private static io.confluent.developer.json.Purchase jsonPurchase(final String customerId) {
+        return new io.confluent.developer.json.Purchase().withCustomerId(customerId).withAmount(437.83).withItem("flux-capacitor");
+    }
+
+    private static io.confluent.developer.json.PageView jsonPageView(final String customerId) {
+        return new io.confluent.developer.json.PageView().withCustomerId(customerId).withIsSpecial(true).withUrl("https://acme.commerce/sale");
+    }
+
+    interface EventFactory<V> {
+        V create(String customerId, boolean purchase);
+    }
+
+    /**
+     * Picks customer ids following a Zipf distribution, a skew of 0 is uniform and
+     * larger values concentrate traffic on the first few customers.
+     */
+    static class ZipfKeys {
+        private final String[] customerIds;
+        private final double[] cumulative;
+        private final Random random;
+
+        ZipfKeys(final int cardinality, final double skew, final Random random) {
+            this.random = random;
+            customerIds = new String[cardinality];
+            cumulative = new double[cardinality];
+            double sum = 0;
+            for (int i = 0; i < cardinality; i++) {
+                customerIds[i] = "customer-" + i;
+                sum += 1.0 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < cardinality; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        String next() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return customerIds[Math.min(index, customerIds.length - 1)];
+        }
+    }
+}
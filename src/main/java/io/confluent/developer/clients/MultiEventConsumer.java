@@ -3,8 +3,11 @@ package io.confluent.developer.clients;
 import io.confluent.developer.avro.CustomerEvent;
 import io.confluent.developer.avro.PageView;
 import io.confluent.developer.avro.Purchase;
-import io.confluent.developer.proto.CustomerEventOrBuilder;
+import io.confluent.developer.utils.DeadLetterQueue;
+import io.confluent.developer.utils.EventDispatcher;
+import io.confluent.developer.utils.EventTypeFilteringDeserializer;
 import io.confluent.developer.utils.PropertiesLoader;
+import io.confluent.developer.utils.SchemaCache;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
 import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
 import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
@@ -14,19 +17,47 @@ import io.confluent.kafka.serializers.protobuf.KafkaProtobufDeserializerConfig;
 import org.apache.avro.specific.SpecificRecord;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 
-import java.time.Duration;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static io.confluent.developer.proto.CustomerEvent.ActionCase.*;
 
 public class MultiEventConsumer {
 
+    private static final EventDispatcher<SpecificRecord, Void> AVRO_DISPATCHER = EventDispatcher.<SpecificRecord, Void>avro()
+            .register(PageView.SCHEMA$.getFullName(), PageView.class,
+                    (pageView, ignored) -> System.out.printf("[Avro] Found an embedded PageView event %s %n", pageView))
+            .register(Purchase.SCHEMA$.getFullName(), Purchase.class,
+                    (purchase, ignored) -> System.out.printf("[Avro] Found an Avro embedded Purchase event %s %n", purchase))
+            // the engine sends records that fail to the dead-letter queue
+            .onUnknown((avroRecord, ignored) -> {
+                throw new IllegalArgumentException("Unrecognized type " + avroRecord.getSchema().getFullName());
+            })
+            .build();
+
+    private static final EventDispatcher<Object, Void> JSON_SCHEMA_DISPATCHER = EventDispatcher.<Void>jsonSchema()
+            .register(io.confluent.developer.json.PageView.class.getName(), io.confluent.developer.json.PageView.class,
+                    (pageView, ignored) -> System.out.printf("[JSON Schema] Found a PageView event %s %n", pageView))
+            .register(io.confluent.developer.json.Purchase.class.getName(), io.confluent.developer.json.Purchase.class,
+                    (purchase, ignored) -> System.out.printf("[JSON Schema] Found a Purchase event %s %n", purchase))
+            .onUnknown((jsonSchemaRecord, ignored) -> System.out.printf("[JSON Schema] !!!! Unrecognized type %s %n%n", jsonSchemaRecord))
+            .build();
+
+    private static final EventDispatcher<io.confluent.developer.proto.CustomerEvent, Void> PROTOBUF_DISPATCHER = EventDispatcher.<Void>protobuf()
+            .register(PURCHASE, (customerEvent, ignored) -> System.out.printf("[Protobuf] Found a Purchase %s %n", customerEvent.getPurchase()))
+            .register(PAGE_VIEW, (customerEvent, ignored) -> System.out.printf("[Protobuf] Found a PageView %s %n", customerEvent.getPageView()))
+            .register(ACTION_NOT_SET, (customerEvent, ignored) -> System.out.println("[Protobuf] Customer action not set"))
+            .build();
+
     public static void main(String[] args) {
         if (args.length < 1) {
             System.out.println("Must provide path to properties file for configurations");
@@ -38,106 +69,115 @@ public class MultiEventConsumer {
 
         consumerConfigs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         consumerConfigs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerConfigs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        SchemaCache.prewarm(consumerConfigs);
 
-        consumeAvroUnwrappedRecords(consumerConfigs);
-        consumeAvroSpecificRecords(consumerConfigs);
-        consumeProtobufRecords(consumerConfigs);
-        consumeJsonSchemaRecords(consumerConfigs);
+        List<ConsumerEngine<?>> engines = List.of(
+                consumeAvroUnwrappedRecords(consumerConfigs, consumerProperties),
+                consumeAvroSpecificRecords(consumerConfigs, consumerProperties),
+                consumeProtobufRecords(consumerConfigs, consumerProperties),
+                consumeJsonSchemaRecords(consumerConfigs, consumerProperties));
 
+        CountDownLatch stopped = new CountDownLatch(engines.size());
+        engines.forEach(engine -> new Thread(() -> {
+            try {
+                engine.run();
+            } finally {
+                stopped.countDown();
+            }
+        }).start());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            engines.forEach(ConsumerEngine::close);
+            try {
+                stopped.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            DeadLetterQueue.closeAll();
+        }));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    static void consumeAvroUnwrappedRecords(final Map<String, Object> baseConfigs) {
+    static ConsumerEngine<SpecificRecord> consumeAvroUnwrappedRecords(final Map<String, Object> baseConfigs, final Properties properties) {
         var consumerConfigs = new HashMap<>(baseConfigs);
-        consumerConfigs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaAvroDeserializer.class);
         consumerConfigs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
         consumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, "unwrapped-avro-group");
-        try (final Consumer<String, SpecificRecord> unwrappedConsumer = new KafkaConsumer<>(consumerConfigs)) {
-            final String topicName = (String) consumerConfigs.get("avro.topic");
-            unwrappedConsumer.subscribe(Collections.singletonList(topicName));
-            ConsumerRecords<String, SpecificRecord> records = unwrappedConsumer.poll(Duration.ofSeconds(5));
-            records.forEach(record -> handleAvroRecord(record.value()));
-        }
+        // records of types not listed in avro.wanted.event.types are skipped without being decoded
+        final Deserializer<SpecificRecord> valueDeserializer = new EventTypeFilteringDeserializer<>(
+                MultiEventConsumer.<SpecificRecord>specificAvroDeserializer(consumerConfigs), EventTypeFilteringDeserializer.wantedTypes(consumerConfigs));
+        valueDeserializer.configure(consumerConfigs, false);
+        final Consumer<String, byte[]> unwrappedConsumer =
+                new KafkaConsumer<>(consumerConfigs, new StringDeserializer(), new ByteArrayDeserializer());
+        final String topicName = (String) consumerConfigs.get("avro.topic");
+        return new ConsumerEngine<>("unwrapped-avro", unwrappedConsumer, valueDeserializer, topicName, record -> {
+            if (record.value() != null) {
+                handleAvroRecord(record.value());
+            }
+        }, properties, deadLetters(consumerConfigs));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends SpecificRecord> Deserializer<T> specificAvroDeserializer(final Map<String, Object> consumerConfigs) {
+        return (Deserializer<T>) (Deserializer<?>) new KafkaAvroDeserializer(SchemaCache.client(consumerConfigs));
     }
 
-    static void consumeAvroSpecificRecords(final Map<String, Object> baseConfigs) {
+    static ConsumerEngine<CustomerEvent> consumeAvroSpecificRecords(final Map<String, Object> baseConfigs, final Properties properties) {
         var consumerConfigs = new HashMap<>(baseConfigs);
-        consumerConfigs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaAvroDeserializer.class);
         consumerConfigs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
         consumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, "wrapped-avro-group");
-        try (final Consumer<String, CustomerEvent> specificConsumer = new KafkaConsumer<>(consumerConfigs)) {
-            final String topicName = (String) consumerConfigs.get("avro.wrapped.topic");
-            specificConsumer.subscribe(Collections.singletonList(topicName));
-            ConsumerRecords<String, CustomerEvent> records = specificConsumer.poll(Duration.ofSeconds(5));
-            records.forEach(record -> {
-                final CustomerEvent customerEvent = record.value();
-                System.out.printf("[Avro] Found a CustomerRecord event %s %n", customerEvent);
-                SpecificRecord action = (SpecificRecord) customerEvent.getAction();
-                handleAvroRecord(action);
-            });
-        }
+        final Deserializer<CustomerEvent> valueDeserializer = specificAvroDeserializer(consumerConfigs);
+        valueDeserializer.configure(consumerConfigs, false);
+        final Consumer<String, byte[]> specificConsumer =
+                new KafkaConsumer<>(consumerConfigs, new StringDeserializer(), new ByteArrayDeserializer());
+        final String topicName = (String) consumerConfigs.get("avro.wrapped.topic");
+        return new ConsumerEngine<>("wrapped-avro", specificConsumer, valueDeserializer, topicName, record -> {
+            final CustomerEvent customerEvent = record.value();
+            System.out.printf("[Avro] Found a CustomerRecord event %s %n", customerEvent);
+            SpecificRecord action = (SpecificRecord) customerEvent.getAction();
+            handleAvroRecord(action);
+        }, properties, deadLetters(consumerConfigs));
     }
 
-    static void consumeJsonSchemaRecords(final Map<String, Object> baseConfigs) {
+    static ConsumerEngine<Object> consumeJsonSchemaRecords(final Map<String, Object> baseConfigs, final Properties properties) {
         var consumerConfigs = new HashMap<>(baseConfigs);
-        consumerConfigs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaJsonSchemaDeserializer.class);
         consumerConfigs.put(KafkaJsonSchemaDeserializerConfig.TYPE_PROPERTY, "javaTypeName");
         consumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, "json-schema-group");
-        try (final Consumer<String, Object> jsonSchemaConsumer = new KafkaConsumer<>(consumerConfigs)) {
-            final String topicName = (String) consumerConfigs.get("json.topic");
-            jsonSchemaConsumer.subscribe(Collections.singletonList(topicName));
-            ConsumerRecords<String, Object> records = jsonSchemaConsumer.poll(Duration.ofSeconds(5));
-            records.forEach(jsonSchemaRecord -> handleJsonSchemaRecord(jsonSchemaRecord.value()));
-        }
+        final Deserializer<Object> valueDeserializer = new KafkaJsonSchemaDeserializer<>(SchemaCache.client(consumerConfigs));
+        valueDeserializer.configure(consumerConfigs, false);
+        final Consumer<String, byte[]> jsonSchemaConsumer =
+                new KafkaConsumer<>(consumerConfigs, new StringDeserializer(), new ByteArrayDeserializer());
+        final String topicName = (String) consumerConfigs.get("json.topic");
+        return new ConsumerEngine<>("json-schema", jsonSchemaConsumer, valueDeserializer, topicName,
+                jsonSchemaRecord -> handleJsonSchemaRecord(jsonSchemaRecord.value()), properties, deadLetters(consumerConfigs));
+    }
+
+    private static DeadLetterQueue deadLetters(final Map<String, Object> consumerConfigs) {
+        return DeadLetterQueue.enabled(consumerConfigs) ? DeadLetterQueue.shared(consumerConfigs) : null;
     }
 
     private static void handleJsonSchemaRecord(final Object jsonSchemaRecord) {
-        if (jsonSchemaRecord instanceof io.confluent.developer.json.PageView) {
-            io.confluent.developer.json.PageView pageView = (io.confluent.developer.json.PageView) jsonSchemaRecord;
-            System.out.printf("[JSON Schema] Found a PageView event %s %n", pageView);
-        } else if (jsonSchemaRecord instanceof io.confluent.developer.json.Purchase) {
-            io.confluent.developer.json.Purchase purchase = (io.confluent.developer.json.Purchase) jsonSchemaRecord;
-            System.out.printf("[JSON Schema] Found a Purchase event %s %n", purchase);
-        } else {
-            System.out.printf("[JSON Schema] !!!! Unrecognized type %s %n%n", jsonSchemaRecord.toString());
-        }
+        JSON_SCHEMA_DISPATCHER.dispatch(jsonSchemaRecord, null);
     }
 
     private static void handleAvroRecord(final SpecificRecord avroRecord) {
-        if (avroRecord instanceof PageView) {
-            PageView pageView = (PageView) avroRecord;
-            System.out.printf("[Avro] Found an embedded PageView event %s %n", pageView);
-        } else if (avroRecord instanceof Purchase) {
-            Purchase purchase = (Purchase) avroRecord;
-            System.out.printf("[Avro] Found an Avro embedded Purchase event %s %n", purchase);
-        } else {
-            throw new IllegalStateException(String.format("Unrecognized type %s %n", avroRecord.getSchema().getFullName()));
-        }
+        AVRO_DISPATCHER.dispatch(avroRecord, null);
     }
 
-    static void consumeProtobufRecords(final Map<String, Object> baseConfigs) {
+    static ConsumerEngine<io.confluent.developer.proto.CustomerEvent> consumeProtobufRecords(final Map<String, Object> baseConfigs, final Properties properties) {
         var consumerConfigs = new HashMap<>(baseConfigs);
-        consumerConfigs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaProtobufDeserializer.class);
-        consumerConfigs.put(KafkaProtobufDeserializerConfig.SPECIFIC_PROTOBUF_VALUE_TYPE, CustomerEvent.class);
+        consumerConfigs.put(KafkaProtobufDeserializerConfig.SPECIFIC_PROTOBUF_VALUE_TYPE, io.confluent.developer.proto.CustomerEvent.class);
         consumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, "proto-group");
-        try (final Consumer<String, CustomerEvent> protoConsumer = new KafkaConsumer<>(consumerConfigs)) {
-            final String topicName = (String) consumerConfigs.get("proto.topic");
-            protoConsumer.subscribe(Collections.singletonList(topicName));
-            ConsumerRecords<String, CustomerEvent> records = protoConsumer.poll(Duration.ofSeconds(5));
-            records.forEach(record -> {
-                final CustomerEvent customerEvent = record.value();
-                io.confluent.developer.proto.CustomerEvent.ActionCase actionCase = ((CustomerEventOrBuilder)customerEvent).getActionCase();
-                switch (actionCase) {
-                    case PURCHASE:
-                        System.out.printf("[Protobuf] Found a Purchase %s %n", customerEvent.getAction());
-                        break;
-                    case PAGE_VIEW:
-                        System.out.printf("[Protobuf] Found a PageView %s %n", customerEvent.getAction());
-                        break;
-                    case ACTION_NOT_SET:
-                        System.out.println("[Protobuf] Customer action not set");
-                        break;
-                }
-            });
-        }
+        final Deserializer<io.confluent.developer.proto.CustomerEvent> valueDeserializer =
+                new KafkaProtobufDeserializer<>(SchemaCache.client(consumerConfigs));
+        valueDeserializer.configure(consumerConfigs, false);
+        final Consumer<String, byte[]> protoConsumer =
+                new KafkaConsumer<>(consumerConfigs, new StringDeserializer(), new ByteArrayDeserializer());
+        final String topicName = (String) consumerConfigs.get("proto.topic");
+        return new ConsumerEngine<>("proto", protoConsumer, valueDeserializer, topicName,
+                record -> PROTOBUF_DISPATCHER.dispatch(record.value(), null), properties, deadLetters(consumerConfigs));
     }
 }
@@ -0,0 +1,66 @@
+package io.confluent.developer.streams;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Thread safe counterpart of {@link ReadThroughCache} for lookups coming from many threads, such as the
+ * query server's request handlers.  Hits don't lock, and a miss loads outside any lock, so two threads
+ * missing on the same key may both load it.  Past the max entries, expired entries are dropped first and
+ * then arbitrary ones until a tenth of the room is free again, cheaper than keeping an exact LRU order.
+ */
+public class ConcurrentReadThroughCache<K, V> {
+
+    private final Function<K, V> loader;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public ConcurrentReadThroughCache(final Function<K, V> loader, final int maxEntries, final long ttlMs) {
+        this.loader = loader;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+    }
+
+    public V get(final K key, final long nowMs) {
+        final Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAtMs > nowMs) {
+            return entry.value;
+        }
+        final V value = loader.apply(key);
+        entries.put(key, new Entry<>(value, nowMs + ttlMs));
+        if (entries.size() > maxEntries) {
+            trim(nowMs);
+        }
+        return value;
+    }
+
+    public void invalidate(final K key) {
+        entries.remove(key);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void trim(final long nowMs) {
+        entries.values().removeIf(entry -> entry.expiresAtMs <= nowMs);
+        final int target = maxEntries - maxEntries / 10;
+        final Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtMs;
+
+        private Entry(final V value, final long expiresAtMs) {
+            this.value = value;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import io.confluent.developer.avro.EnrichedEvent;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+
+import java.util.Properties;
+
+/**
+ * Joins each event with the customer's profile from a {@code GlobalKTable} built from the {@code CustomerInfo}
+ * topic.  The table is fully replicated to every instance so a lookup never leaves the process, and a small
+ * read-through cache in front of the store saves the store read and deserialization for active customers.
+ * Profiles can be stale by up to {@code streams.enrichment.cache.ttl.ms}.
+ */
+public class CustomerEnrichment {
+
+    static final String ENABLED_CONFIG = "streams.enrichment.enabled";
+    static final String TABLE_TOPIC_CONFIG = "streams.enrichment.table.topic.name";
+    static final String OUTPUT_TOPIC_CONFIG = "streams.enrichment.output.topic.name";
+    static final String CACHE_MAX_ENTRIES_CONFIG = "streams.enrichment.cache.max.entries";
+    static final String CACHE_TTL_CONFIG = "streams.enrichment.cache.ttl.ms";
+    static final String PROFILE_STORE = "customer-profiles";
+
+    private CustomerEnrichment() {
+    }
+
+    public static boolean enabled(final Properties properties) {
+        return Boolean.parseBoolean(properties.getProperty(ENABLED_CONFIG, "false"));
+    }
+
+    public static void addTo(final StreamsBuilder builder,
+                             final KStream<String, SpecificRecord> events,
+                             final Serde<CustomerInfo> customerSerde,
+                             final Serde<EnrichedEvent> enrichedSerde,
+                             final Properties properties) {
+        final String tableTopic = properties.getProperty(TABLE_TOPIC_CONFIG, properties.getProperty("streams.output.topic.name"));
+        final String outputTopic = properties.getProperty(OUTPUT_TOPIC_CONFIG, "enriched-events");
+        final int maxEntries = Integer.parseInt(properties.getProperty(CACHE_MAX_ENTRIES_CONFIG, "10000"));
+        final long ttlMs = Long.parseLong(properties.getProperty(CACHE_TTL_CONFIG, "5000"));
+
+        builder.globalTable(tableTopic, Consumed.with(Serdes.String(), customerSerde),
+                Materialized.<String, CustomerInfo, KeyValueStore<Bytes, byte[]>>as(PROFILE_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(customerSerde));
+
+        events.processValues(new EnrichmentSupplier(maxEntries, ttlMs))
+                .to(outputTopic, Produced.with(Serdes.String(), enrichedSerde));
+    }
+
+    static class EnrichmentSupplier implements FixedKeyProcessorSupplier<String, SpecificRecord, EnrichedEvent> {
+        private final int maxEntries;
+        private final long ttlMs;
+
+        EnrichmentSupplier(final int maxEntries, final long ttlMs) {
+            this.maxEntries = maxEntries;
+            this.ttlMs = ttlMs;
+        }
+
+        @Override
+        public FixedKeyProcessor<String, SpecificRecord, EnrichedEvent> get() {
+            return new FixedKeyProcessor<>() {
+                private FixedKeyProcessorContext<String, EnrichedEvent> context;
+                private ReadThroughCache<String, CustomerInfo> profiles;
+
+                @Override
+                public void init(final FixedKeyProcessorContext<String, EnrichedEvent> context) {
+                    this.context = context;
+                    // global stores don't need to be connected to the processor to be read
+                    final TimestampedKeyValueStore<String, CustomerInfo> store = context.getStateStore(PROFILE_STORE);
+                    profiles = new ReadThroughCache<>(customerId -> {
+                        final ValueAndTimestamp<CustomerInfo> profile = store.get(customerId);
+                        return profile == null ? null : profile.value();
+                    }, maxEntries, ttlMs);
+                }
+
+                @Override
+                public void process(final FixedKeyRecord<String, SpecificRecord> fixedKeyRecord) {
+                    final CustomerInfo profile = profiles.get(fixedKeyRecord.key(), context.currentSystemTimeMs());
+                    context.forward(fixedKeyRecord.withValue(EnrichedEvent.newBuilder()
+                            .setCustomerId(fixedKeyRecord.key())
+                            .setEvent(fixedKeyRecord.value())
+                            .setCustomer(profile)
+                            .build()));
+                }
+            };
+        }
+    }
+}
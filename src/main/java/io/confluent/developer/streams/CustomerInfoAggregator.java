@@ -0,0 +1,126 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Folds individual events into a {@link CustomerInfo} according to the configured {@link Mode}.
+ * Every mode except {@link Mode#UNBOUNDED} keeps the aggregate at a fixed maximum size, so the
+ * bytes written to the store and output topic per event don't grow with the age of the customer.
+ */
+public class CustomerInfoAggregator {
+
+    public static final String AGGREGATE_MODE_CONFIG = "customer.info.aggregate.mode";
+    public static final String MAX_ENTRIES_CONFIG = "customer.info.max.entries";
+
+    public enum Mode {
+        /** Appends every url and item, the original behavior */
+        UNBOUNDED,
+        /** Keeps only the most recent N urls and items */
+        RECENT,
+        /**
+         * Keeps approximate counts for at most N distinct urls and items, the urls and items lists hold
+         * the tracked keys oldest first
+         */
+        DISTINCT,
+        /** Keeps only the rolling counts and purchase total */
+        TOTALS
+    }
+
+    private final Mode mode;
+    private final int maxEntries;
+
+    public CustomerInfoAggregator(final Mode mode, final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be at least 1 but was " + maxEntries);
+        }
+        this.mode = mode;
+        this.maxEntries = maxEntries;
+    }
+
+    public static CustomerInfoAggregator fromProperties(final Properties properties) {
+        Mode mode = Mode.valueOf(properties.getProperty(AGGREGATE_MODE_CONFIG, "unbounded").toUpperCase(Locale.ROOT));
+        int maxEntries = Integer.parseInt(properties.getProperty(MAX_ENTRIES_CONFIG, "10"));
+        return new CustomerInfoAggregator(mode, maxEntries);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public CustomerInfo newCustomerInfo(final String customerId) {
+        return CustomerInfo.newBuilder().setCustomerId(customerId).build();
+    }
+
+    public void addPageView(final CustomerInfo customerInfo, final PageView pageView) {
+        customerInfo.setPageViewCount(customerInfo.getPageViewCount() + 1);
+        addEntry(customerInfo.getPageViews(), customerInfo.getPageViewCounts(), pageView.getUrl());
+    }
+
+    public void addPurchase(final CustomerInfo customerInfo, final Purchase purchase) {
+        customerInfo.setPurchaseCount(customerInfo.getPurchaseCount() + 1);
+        customerInfo.setPurchaseTotal(customerInfo.getPurchaseTotal() + purchase.getAmount());
+        addEntry(customerInfo.getItems(), customerInfo.getItemCounts(), purchase.getItem());
+    }
+
+    private void addEntry(final List<String> recent, final Map<String, Long> counts, final String entry) {
+        switch (mode) {
+            case UNBOUNDED:
+                recent.add(entry);
+                break;
+            case RECENT:
+                recent.add(entry);
+                while (recent.size() > maxEntries) {
+                    recent.remove(0);
+                }
+                break;
+            case DISTINCT:
+                Long count = counts.get(entry);
+                if (count != null) {
+                    counts.put(entry, count + 1);
+                    break;
+                }
+                if (recent.size() != counts.size()) {
+                    // written before the keys were tracked in order
+                    recent.clear();
+                    recent.addAll(counts.keySet());
+                }
+                long inherited = counts.size() >= maxEntries ? evictLeastFrequent(recent, counts) : 0;
+                counts.put(entry, inherited + 1);
+                recent.add(entry);
+                break;
+            case TOTALS:
+                break;
+        }
+    }
+
+    /**
+     * Space-saving eviction: drops the least frequent key, the oldest one on a tie, and returns its count
+     * for the new key to inherit.  A new key therefore starts above the keys it competes with instead of
+     * being the next one evicted, at the cost of counts being an upper bound.  Only runs when a new key
+     * arrives at capacity and stops at the first key seen once.
+     */
+    private static long evictLeastFrequent(final List<String> keysOldestFirst, final Map<String, Long> counts) {
+        String leastFrequent = null;
+        long lowest = Long.MAX_VALUE;
+        for (String key : keysOldestFirst) {
+            final long count = counts.get(key);
+            if (count < lowest) {
+                lowest = count;
+                leastFrequent = key;
+                if (count == 1) {
+                    break;
+                }
+            }
+        }
+        counts.remove(leastFrequent);
+        keysOldestFirst.remove(leastFrequent);
+        return lowest;
+    }
+}
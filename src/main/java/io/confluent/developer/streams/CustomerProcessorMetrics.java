@@ -0,0 +1,95 @@
+package io.confluent.developer.streams;
+
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.streams.StreamsMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sensors for the customer processor, registered through the task's {@link StreamsMetrics} so they're
+ * exported over JMX with the built-in Kafka Streams metrics under
+ * {@code kafka.streams:type=stream-customer-processor-metrics}.
+ * <p>
+ * Latencies are recorded in nanoseconds, the avg/max come from the Kafka Streams sensors and the
+ * percentiles from an {@link HdrHistogramStat} attached to the same sensor.
+ */
+public class CustomerProcessorMetrics {
+
+    static final String SCOPE = "customer-processor";
+    static final String GROUP = "stream-" + SCOPE + "-metrics";
+    private static final long PERCENTILE_INTERVAL_MS = 30_000;
+
+    private final StreamsMetrics streamsMetrics;
+    private final String entity;
+    private final Map<String, String> tags;
+    private final List<Sensor> sensors = new ArrayList<>();
+    private final Map<String, Sensor> eventTypeSensors = new HashMap<>();
+    private final Sensor processLatency;
+    private final Sensor storeGetLatency;
+    private final Sensor storePutLatency;
+    private final Sensor customerInfoSize;
+    private final Sensor skipped;
+
+    public CustomerProcessorMetrics(final StreamsMetrics streamsMetrics, final String taskId) {
+        this.streamsMetrics = streamsMetrics;
+        this.entity = SCOPE + "-" + taskId;
+        // the same tags the StreamsMetrics sensors get, so all metrics of a processor share one bean
+        this.tags = Map.of("thread-id", Thread.currentThread().getName(), SCOPE + "-id", entity);
+        processLatency = latencySensor("process", "Time to fold one event into CustomerInfo");
+        storeGetLatency = latencySensor("store-get", "Time to read a CustomerInfo from the store");
+        storePutLatency = latencySensor("store-put", "Time to write a CustomerInfo to the store");
+        customerInfoSize = track(streamsMetrics.addSensor(entity + "-customer-info-size", Sensor.RecordingLevel.INFO));
+        customerInfoSize.add(new HdrHistogramStat("customer-info-bytes", GROUP,
+                "Sampled serialized size of CustomerInfo", tags, PERCENTILE_INTERVAL_MS));
+        skipped = track(streamsMetrics.addRateTotalSensor(SCOPE, entity, "skipped", Sensor.RecordingLevel.INFO));
+    }
+
+    public void recordEvent(final String eventType) {
+        Sensor sensor = eventTypeSensors.get(eventType);
+        if (sensor == null) {
+            sensor = track(streamsMetrics.addRateTotalSensor(SCOPE, entity, eventType, Sensor.RecordingLevel.INFO));
+            eventTypeSensors.put(eventType, sensor);
+        }
+        sensor.record();
+    }
+
+    public void recordProcessLatency(final long nanos) {
+        processLatency.record(nanos);
+    }
+
+    public void recordStoreGetLatency(final long nanos) {
+        storeGetLatency.record(nanos);
+    }
+
+    public void recordStorePutLatency(final long nanos) {
+        storePutLatency.record(nanos);
+    }
+
+    public void recordCustomerInfoSize(final int bytes) {
+        customerInfoSize.record(bytes);
+    }
+
+    public void recordSkipped() {
+        skipped.record();
+    }
+
+    public void close() {
+        sensors.forEach(streamsMetrics::removeSensor);
+        sensors.clear();
+        eventTypeSensors.clear();
+    }
+
+    private Sensor latencySensor(final String operation, final String description) {
+        final Sensor sensor = track(streamsMetrics.addLatencyRateTotalSensor(SCOPE, entity, operation, Sensor.RecordingLevel.INFO));
+        sensor.add(new HdrHistogramStat(operation + "-latency", GROUP, description, tags, PERCENTILE_INTERVAL_MS));
+        return sensor;
+    }
+
+    private Sensor track(final Sensor sensor) {
+        sensors.add(sensor);
+        return sensor;
+    }
+}
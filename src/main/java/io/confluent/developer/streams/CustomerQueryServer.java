@@ -0,0 +1,277 @@
+package io.confluent.developer.streams;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.confluent.developer.avro.CustomerInfo;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves interactive queries over the customer store, so a {@code CustomerInfo} can be looked up without
+ * re-reading the output topic.
+ * <ul>
+ *     <li>{@code GET /customers/<id>} returns the customer, forwarded once to the instance that owns the key.
+ *     A forwarded lookup carries {@code local=true} and gets a 503 if ownership moved in the meantime, rather
+ *     than being passed on again</li>
+ *     <li>{@code GET /customers?from=<id>&to=<id>} returns a range scan over all instances, the
+ *     {@code streams.query.range.limit} smallest customer ids in the range</li>
+ * </ul>
+ * The server listens on the port of {@code application.server}, which Kafka Streams shares with the other
+ * instances of the application so each can find the owner of a key.  Local answers are kept in a
+ * {@link ConcurrentReadThroughCache} for {@code streams.query.cache.ttl.ms}.
+ */
+public class CustomerQueryServer implements AutoCloseable {
+
+    static final String ENABLED_CONFIG = "streams.query.enabled";
+    static final String THREADS_CONFIG = "streams.query.threads";
+    static final String CACHE_MAX_ENTRIES_CONFIG = "streams.query.cache.max.entries";
+    static final String CACHE_TTL_CONFIG = "streams.query.cache.ttl.ms";
+    static final String RANGE_LIMIT_CONFIG = "streams.query.range.limit";
+
+    private static final String PATH = "/customers";
+    private static final String LOCAL_PARAM = "local";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final KafkaStreams kafkaStreams;
+    private final String storeName;
+    private final HostInfo self;
+    private final int rangeLimit;
+    private final ConcurrentReadThroughCache<String, String> cache;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    public CustomerQueryServer(final KafkaStreams kafkaStreams, final String storeName, final Properties properties) throws IOException {
+        this.kafkaStreams = kafkaStreams;
+        this.storeName = storeName;
+        this.self = HostInfo.buildFromEndpoint(properties.getProperty(StreamsConfig.APPLICATION_SERVER_CONFIG));
+        this.rangeLimit = Integer.parseInt(properties.getProperty(RANGE_LIMIT_CONFIG, "1000"));
+        this.cache = new ConcurrentReadThroughCache<>(this::queryLocal,
+                Integer.parseInt(properties.getProperty(CACHE_MAX_ENTRIES_CONFIG, "10000")),
+                Long.parseLong(properties.getProperty(CACHE_TTL_CONFIG, "1000")));
+        this.executor = Executors.newFixedThreadPool(Integer.parseInt(properties.getProperty(THREADS_CONFIG, "4")));
+        this.server = HttpServer.create(new InetSocketAddress(self.port()), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext(PATH, this::handle);
+    }
+
+    public static boolean enabled(final Properties properties) {
+        return Boolean.parseBoolean(properties.getProperty(ENABLED_CONFIG, "false"));
+    }
+
+    public void start() {
+        server.start();
+        System.out.printf("Serving interactive queries on %s %n", self);
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"error\":\"only GET is supported\"}");
+                return;
+            }
+            final String path = exchange.getRequestURI().getPath();
+            final Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+            final boolean local = Boolean.parseBoolean(params.get(LOCAL_PARAM));
+            if (path.startsWith(PATH + "/") && path.length() > PATH.length() + 1) {
+                lookup(exchange, path.substring(PATH.length() + 1), local);
+            } else if (params.containsKey("from") || params.containsKey("to")) {
+                range(exchange, params.get("from"), params.get("to"), local);
+            } else {
+                respond(exchange, 400, "{\"error\":\"use /customers/<id> or /customers?from=<id>&to=<id>\"}");
+            }
+        } catch (InvalidStateStoreException e) {
+            // the store is migrating during a rebalance, callers should retry
+            respond(exchange, 503, "{\"error\":\"store not available, retry\"}");
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 500, "{\"error\":\"" + e.getClass().getSimpleName() + "\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void lookup(final HttpExchange exchange, final String customerId, final boolean localOnly)
+            throws IOException, InterruptedException {
+        final KeyQueryMetadata metadata = kafkaStreams.queryMetadataForKey(storeName, customerId, Serdes.String().serializer());
+        if (metadata == null || metadata.activeHost().equals(KeyQueryMetadata.NOT_AVAILABLE.activeHost())) {
+            respond(exchange, 503, "{\"error\":\"store not available, retry\"}");
+            return;
+        }
+        if (!metadata.activeHost().equals(self)) {
+            if (localOnly) {
+                // forwarded here by an instance with an older view of the assignment
+                respond(exchange, 503, "{\"error\":\"key moved during a rebalance, retry\"}");
+                return;
+            }
+            final HttpResponse<String> response = forward(metadata.activeHost(),
+                    PATH + "/" + encodePathSegment(customerId) + "?" + LOCAL_PARAM + "=true");
+            respond(exchange, response.statusCode(), response.body());
+            return;
+        }
+        final String json = cache.get(customerId, System.currentTimeMillis());
+        if (json == null) {
+            respond(exchange, 404, "{\"error\":\"unknown customer\"}");
+        } else {
+            respond(exchange, 200, json);
+        }
+    }
+
+    private void range(final HttpExchange exchange, final String from, final String to, final boolean localOnly)
+            throws IOException, InterruptedException {
+        final TreeMap<String, String> results = new TreeMap<>(scanLocal(from, to));
+        if (!localOnly) {
+            final String query = PATH + "?" + LOCAL_PARAM + "=true"
+                    + (from != null ? "&from=" + encode(from) : "")
+                    + (to != null ? "&to=" + encode(to) : "");
+            for (StreamsMetadata metadata : kafkaStreams.streamsMetadataForStore(storeName)) {
+                if (metadata.hostInfo().equals(self)) {
+                    continue;
+                }
+                final HttpResponse<String> response = forward(metadata.hostInfo(), query);
+                if (response.statusCode() != 200) {
+                    respond(exchange, response.statusCode(), response.body());
+                    return;
+                }
+                results.putAll(parseEntries(response.body()));
+            }
+        }
+        while (results.size() > rangeLimit) {
+            results.pollLastEntry();
+        }
+        respond(exchange, 200, entriesJson(results));
+    }
+
+    private String queryLocal(final String customerId) {
+        final CustomerInfo customerInfo = localStore().get(customerId);
+        return customerInfo == null ? null : customerInfo.toString();
+    }
+
+    private Map<String, String> scanLocal(final String from, final String to) {
+        final Map<String, String> results = new TreeMap<>();
+        try (KeyValueIterator<String, CustomerInfo> iterator = localStore().range(from, to)) {
+            smallestKeys(iterator, rangeLimit).forEach((key, value) -> results.put(key, value.toString()));
+        }
+        return results;
+    }
+
+    private ReadOnlyKeyValueStore<String, CustomerInfo> localStore() {
+        return kafkaStreams.store(StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.keyValueStore()));
+    }
+
+    private HttpResponse<String> forward(final HostInfo host, final String pathAndQuery) throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + host.host() + ":" + host.port() + pathAndQuery))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Writes the entries as one JSON object, the values are Avro's JSON rendering of a record and are embedded as is
+     */
+    static String entriesJson(final Map<String, String> entries) throws JsonProcessingException {
+        final ObjectNode body = MAPPER.createObjectNode();
+        entries.forEach((key, value) -> body.putRawValue(key, new RawValue(value)));
+        return MAPPER.writeValueAsString(body);
+    }
+
+    /**
+     * Reads back the object written by {@link #entriesJson}
+     */
+    static Map<String, String> parseEntries(final String body) throws JsonProcessingException {
+        final Map<String, String> entries = new HashMap<>();
+        MAPPER.readTree(body).fields().forEachRemaining(field -> entries.put(field.getKey(), field.getValue().toString()));
+        return entries;
+    }
+
+    /**
+     * The {@code limit} entries with the smallest keys, the composite store iterates one partition after the
+     * other, so the first entries it returns aren't the smallest ones
+     */
+    static <V> TreeMap<String, V> smallestKeys(final Iterator<KeyValue<String, V>> iterator, final int limit) {
+        final TreeMap<String, V> smallest = new TreeMap<>();
+        while (iterator.hasNext()) {
+            final KeyValue<String, V> entry = iterator.next();
+            smallest.put(entry.key, entry.value);
+            if (smallest.size() > limit) {
+                smallest.pollLastEntry();
+            }
+        }
+        return smallest;
+    }
+
+    private static Map<String, String> queryParams(final String rawQuery) {
+        final Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            final int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String encode(final String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String encodePathSegment(final String value) {
+        // the server decodes %20 but not + in paths
+        return encode(value).replace("+", "%20");
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
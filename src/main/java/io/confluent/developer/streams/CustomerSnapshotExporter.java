@@ -0,0 +1,149 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Periodically writes the local part of the customer store to an Avro container file, so analytics can read
+ * the customer state in bulk instead of replaying the output topic.
+ * <p>
+ * Each snapshot streams through the store iterator into a {@link DataFileWriter}, so only one block is held
+ * in memory.  Blocks are compressed with {@code streams.snapshot.codec} and closed with a sync marker every
+ * {@code streams.snapshot.sync.interval.bytes}, which lets readers split the file.  The file is written under a
+ * temporary name and renamed once complete, and only the newest {@code streams.snapshot.retain} files are kept.
+ * Every instance exports the partitions it hosts, give each its own {@code streams.snapshot.dir}.
+ */
+public class CustomerSnapshotExporter implements AutoCloseable {
+
+    static final String ENABLED_CONFIG = "streams.snapshot.enabled";
+    static final String INTERVAL_CONFIG = "streams.snapshot.interval.ms";
+    static final String DIR_CONFIG = "streams.snapshot.dir";
+    static final String CODEC_CONFIG = "streams.snapshot.codec";
+    static final String SYNC_INTERVAL_CONFIG = "streams.snapshot.sync.interval.bytes";
+    static final String RETAIN_CONFIG = "streams.snapshot.retain";
+
+    private static final String PREFIX = "customer-info-";
+    private static final String SUFFIX = ".avro";
+
+    private final KafkaStreams kafkaStreams;
+    private final String storeName;
+    private final long intervalMs;
+    private final Path dir;
+    private final String codec;
+    private final int syncInterval;
+    private final int retain;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "customer-snapshot-exporter"));
+
+    public CustomerSnapshotExporter(final KafkaStreams kafkaStreams, final String storeName, final Properties properties) {
+        this.kafkaStreams = kafkaStreams;
+        this.storeName = storeName;
+        this.intervalMs = Long.parseLong(properties.getProperty(INTERVAL_CONFIG, "900000"));
+        this.dir = Path.of(properties.getProperty(DIR_CONFIG, "snapshots"));
+        this.codec = properties.getProperty(CODEC_CONFIG, "deflate");
+        this.syncInterval = Integer.parseInt(properties.getProperty(SYNC_INTERVAL_CONFIG, "1048576"));
+        this.retain = Integer.parseInt(properties.getProperty(RETAIN_CONFIG, "4"));
+        validateCodec(codec);
+    }
+
+    /**
+     * Compresses a few bytes with the codec, so a codec whose library isn't on the classpath (snappy, zstd, xz)
+     * fails at startup rather than on the first snapshot
+     */
+    static void validateCodec(final String codec) {
+        try {
+            CodecFactory.fromString(codec).createInstance().compress(ByteBuffer.wrap(new byte[] {0}));
+        } catch (IOException | RuntimeException | LinkageError e) {
+            throw new IllegalArgumentException("Snapshot codec " + codec + " can't be used", e);
+        }
+    }
+
+    public static boolean enabled(final Properties properties) {
+        return Boolean.parseBoolean(properties.getProperty(ENABLED_CONFIG, "false"));
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::exportSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void exportSafely() {
+        if (kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            return;
+        }
+        try {
+            export();
+        } catch (IOException | InvalidStateStoreException e) {
+            System.err.printf("Exporting a customer snapshot failed %s %n", e);
+        } catch (RuntimeException e) {
+            // an exception thrown from here would cancel every later snapshot without a trace, Errors still propagate
+            System.err.printf("Exporting a customer snapshot failed unexpectedly %s %n", e);
+        }
+    }
+
+    Path export() throws IOException {
+        Files.createDirectories(dir);
+        final long start = System.currentTimeMillis();
+        final Path target = dir.resolve(PREFIX + start + SUFFIX);
+        final Path temp = dir.resolve(PREFIX + start + SUFFIX + ".tmp");
+        final ReadOnlyKeyValueStore<String, CustomerInfo> store =
+                kafkaStreams.store(StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.keyValueStore()));
+        long count = 0;
+        try (DataFileWriter<CustomerInfo> writer = new DataFileWriter<>(new SpecificDatumWriter<>(CustomerInfo.class))) {
+            writer.setCodec(CodecFactory.fromString(codec));
+            writer.setSyncInterval(syncInterval);
+            writer.create(CustomerInfo.getClassSchema(), temp.toFile());
+            try (KeyValueIterator<String, CustomerInfo> iterator = store.all()) {
+                while (iterator.hasNext()) {
+                    writer.append(iterator.next().value);
+                    count++;
+                }
+            }
+        } catch (Throwable e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf("Exported %d customers to %s in %d ms %n", count, target, System.currentTimeMillis() - start);
+        pruneOldSnapshots();
+        return target;
+    }
+
+    private void pruneOldSnapshots() throws IOException {
+        final List<Path> snapshots;
+        try (Stream<Path> files = Files.list(dir)) {
+            snapshots = files.filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                            && path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (int i = 0; i < snapshots.size() - retain; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,67 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.state.KeyValueBytesStoreSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Builds the customer state store from the {@code customer.store.*} properties.
+ * The store always has changelog logging and record caching enabled, the type only controls
+ * where the current values live.
+ */
+public class CustomerStores {
+
+    public static final String STORE_TYPE_CONFIG = "customer.store.type";
+    public static final String LRU_MAX_ENTRIES_CONFIG = "customer.store.lru.max.entries";
+
+    public enum StoreType {
+        IN_MEMORY,
+        ROCKSDB,
+        LRU
+    }
+
+    private CustomerStores() {
+    }
+
+    public static StoreType storeType(final Properties properties) {
+        return StoreType.valueOf(properties.getProperty(STORE_TYPE_CONFIG, "in_memory").replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Adds the store specific configs, namely the {@link CustomerRocksDBConfig} setter, to the streams properties.
+     * Needs to run before the {@code KafkaStreams} instance is created.
+     */
+    public static void configure(final Properties properties) {
+        if (storeType(properties) == StoreType.ROCKSDB) {
+            properties.putIfAbsent(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, CustomerRocksDBConfig.class);
+        }
+    }
+
+    public static StoreBuilder<KeyValueStore<String, CustomerInfo>> customerStore(final String storeName,
+                                                                                  final Serde<CustomerInfo> customerSerde,
+                                                                                  final Properties properties) {
+        final KeyValueBytesStoreSupplier supplier;
+        switch (storeType(properties)) {
+            case ROCKSDB:
+                supplier = Stores.persistentKeyValueStore(storeName);
+                break;
+            case LRU:
+                supplier = Stores.lruMap(storeName, Integer.parseInt(properties.getProperty(LRU_MAX_ENTRIES_CONFIG, "100000")));
+                break;
+            default:
+                supplier = Stores.inMemoryKeyValueStore(storeName);
+        }
+        return Stores.keyValueStoreBuilder(supplier, Serdes.String(), customerSerde)
+                .withLoggingEnabled(Map.of())
+                .withCachingEnabled();
+    }
+}
@@ -0,0 +1,39 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.utils.DeadLetterQueue;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.streams.errors.DeserializationExceptionHandler;
+import org.apache.kafka.streams.processor.ProcessorContext;
+
+import java.util.Map;
+
+/**
+ * Sends records that fail to deserialize to the {@link DeadLetterQueue} and carries on with the next record,
+ * instead of the default of shutting the stream thread down.  If the dead letter can't be sent the thread is
+ * failed after all, so the record's offset isn't committed.
+ */
+public class DeadLetterDeserializationHandler implements DeserializationExceptionHandler {
+
+    private DeadLetterQueue deadLetters;
+
+    @Override
+    public void configure(final Map<String, ?> configs) {
+        deadLetters = DeadLetterQueue.shared(configs);
+    }
+
+    @Override
+    public DeserializationHandlerResponse handle(final ProcessorContext context,
+                                                 final ConsumerRecord<byte[], byte[]> record,
+                                                 final Exception exception) {
+        System.err.printf("Dead-lettering record %s-%d at %d in task %s %s %n",
+                record.topic(), record.partition(), record.offset(), context.taskId(), exception);
+        try {
+            deadLetters.send(record.topic(), record.partition(), record.offset(), record.key(), record.value(), record.headers(), exception);
+        } catch (KafkaException e) {
+            System.err.printf("Dead-lettering record %s-%d at %d failed %s %n", record.topic(), record.partition(), record.offset(), e);
+            return DeserializationHandlerResponse.FAIL;
+        }
+        return DeserializationHandlerResponse.CONTINUE;
+    }
+}
@@ -0,0 +1,233 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerEvent;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Field by field mappings between the generated Avro, Protobuf and JSON Schema event classes, one per
+ * source and target pair, so Protobuf and JSON Schema events convert into each other without going
+ * through Avro.  The wrapped Avro format is the plain Avro event inside a {@link CustomerEvent}: it's read
+ * by taking the decoded action out and written by wrapping the mapped Avro event.  Events of an unknown
+ * type map to {@code null}.
+ */
+public class EventTranscoder {
+
+    public enum Format {
+        AVRO,
+        AVRO_WRAPPED,
+        PROTO,
+        JSON;
+
+        public static Format of(final String name) {
+            return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private EventTranscoder() {
+    }
+
+    public static Function<Object, Object> transcoder(final Format source, final Format target) {
+        if (source == target) {
+            throw new IllegalArgumentException("Source and target format are both " + source);
+        }
+        switch (source) {
+            case AVRO:
+                final Function<SpecificRecord, Object> fromEvent = fromAvro(target);
+                return event -> fromEvent.apply((SpecificRecord) event);
+            case AVRO_WRAPPED:
+                final Function<SpecificRecord, Object> fromAction = fromAvro(target);
+                return event -> fromAction.apply(unwrap((CustomerEvent) event));
+            case PROTO:
+                return fromProto(target);
+            case JSON:
+                return fromJson(target);
+            default:
+                throw new IllegalArgumentException("Unsupported source format " + source);
+        }
+    }
+
+    private static Function<SpecificRecord, Object> fromAvro(final Format target) {
+        switch (target) {
+            case AVRO:
+                return event -> event;
+            case AVRO_WRAPPED:
+                return EventTranscoder::wrap;
+            case PROTO:
+                return EventTranscoder::protoFromAvro;
+            case JSON:
+                return EventTranscoder::jsonFromAvro;
+            default:
+                throw new IllegalArgumentException("Unsupported target format " + target);
+        }
+    }
+
+    private static Function<Object, Object> fromProto(final Format target) {
+        switch (target) {
+            case AVRO:
+                return event -> avroFromProto((io.confluent.developer.proto.CustomerEvent) event);
+            case AVRO_WRAPPED:
+                return event -> wrap(avroFromProto((io.confluent.developer.proto.CustomerEvent) event));
+            case JSON:
+                return event -> jsonFromProto((io.confluent.developer.proto.CustomerEvent) event);
+            default:
+                throw new IllegalArgumentException("Unsupported target format " + target);
+        }
+    }
+
+    private static Function<Object, Object> fromJson(final Format target) {
+        switch (target) {
+            case AVRO:
+                return EventTranscoder::avroFromJson;
+            case AVRO_WRAPPED:
+                return event -> wrap(avroFromJson(event));
+            case PROTO:
+                return EventTranscoder::protoFromJson;
+            default:
+                throw new IllegalArgumentException("Unsupported target format " + target);
+        }
+    }
+
+    static SpecificRecord avroFromJson(final Object event) {
+        if (event instanceof io.confluent.developer.json.Purchase) {
+            io.confluent.developer.json.Purchase purchase = (io.confluent.developer.json.Purchase) event;
+            return Purchase.newBuilder()
+                    .setItem(orEmpty(purchase.getItem()))
+                    .setAmount(purchase.getAmount() == null ? 0.0 : purchase.getAmount())
+                    .setCustomerId(orEmpty(purchase.getCustomerId()))
+                    .build();
+        } else if (event instanceof io.confluent.developer.json.PageView) {
+            io.confluent.developer.json.PageView pageView = (io.confluent.developer.json.PageView) event;
+            return PageView.newBuilder()
+                    .setUrl(orEmpty(pageView.getUrl()))
+                    .setIsSpecial(Boolean.TRUE.equals(pageView.getIsSpecial()))
+                    .setCustomerId(orEmpty(pageView.getCustomerId()))
+                    .build();
+        }
+        return null;
+    }
+
+    static io.confluent.developer.proto.CustomerEvent protoFromJson(final Object event) {
+        if (event instanceof io.confluent.developer.json.Purchase) {
+            io.confluent.developer.json.Purchase purchase = (io.confluent.developer.json.Purchase) event;
+            return io.confluent.developer.proto.CustomerEvent.newBuilder()
+                    .setId(orEmpty(purchase.getCustomerId()))
+                    .setPurchase(io.confluent.developer.proto.Purchase.newBuilder()
+                            .setItem(orEmpty(purchase.getItem()))
+                            .setAmount(purchase.getAmount() == null ? 0.0 : purchase.getAmount())
+                            .setCustomerId(orEmpty(purchase.getCustomerId())))
+                    .build();
+        } else if (event instanceof io.confluent.developer.json.PageView) {
+            io.confluent.developer.json.PageView pageView = (io.confluent.developer.json.PageView) event;
+            return io.confluent.developer.proto.CustomerEvent.newBuilder()
+                    .setId(orEmpty(pageView.getCustomerId()))
+                    .setPageView(io.confluent.developer.proto.PageView.newBuilder()
+                            .setUrl(orEmpty(pageView.getUrl()))
+                            .setIsSpecial(Boolean.TRUE.equals(pageView.getIsSpecial()))
+                            .setCustomerId(orEmpty(pageView.getCustomerId())))
+                    .build();
+        }
+        return null;
+    }
+
+    static SpecificRecord avroFromProto(final io.confluent.developer.proto.CustomerEvent event) {
+        switch (event.getActionCase()) {
+            case PURCHASE:
+                io.confluent.developer.proto.Purchase purchase = event.getPurchase();
+                return Purchase.newBuilder()
+                        .setItem(purchase.getItem())
+                        .setAmount(purchase.getAmount())
+                        .setCustomerId(purchase.getCustomerId())
+                        .build();
+            case PAGE_VIEW:
+                io.confluent.developer.proto.PageView pageView = event.getPageView();
+                return PageView.newBuilder()
+                        .setUrl(pageView.getUrl())
+                        .setIsSpecial(pageView.getIsSpecial())
+                        .setCustomerId(pageView.getCustomerId())
+                        .build();
+            default:
+                return null;
+        }
+    }
+
+    static Object jsonFromProto(final io.confluent.developer.proto.CustomerEvent event) {
+        switch (event.getActionCase()) {
+            case PURCHASE:
+                io.confluent.developer.proto.Purchase purchase = event.getPurchase();
+                return new io.confluent.developer.json.Purchase()
+                        .withItem(purchase.getItem())
+                        .withAmount(purchase.getAmount())
+                        .withCustomerId(purchase.getCustomerId());
+            case PAGE_VIEW:
+                io.confluent.developer.proto.PageView pageView = event.getPageView();
+                return new io.confluent.developer.json.PageView()
+                        .withUrl(pageView.getUrl())
+                        .withIsSpecial(pageView.getIsSpecial())
+                        .withCustomerId(pageView.getCustomerId());
+            default:
+                return null;
+        }
+    }
+
+    static io.confluent.developer.proto.CustomerEvent protoFromAvro(final SpecificRecord event) {
+        if (event instanceof Purchase) {
+            Purchase purchase = (Purchase) event;
+            return io.confluent.developer.proto.CustomerEvent.newBuilder()
+                    .setId(purchase.getCustomerId())
+                    .setPurchase(io.confluent.developer.proto.Purchase.newBuilder()
+                            .setItem(purchase.getItem())
+                            .setAmount(purchase.getAmount())
+                            .setCustomerId(purchase.getCustomerId()))
+                    .build();
+        } else if (event instanceof PageView) {
+            PageView pageView = (PageView) event;
+            return io.confluent.developer.proto.CustomerEvent.newBuilder()
+                    .setId(pageView.getCustomerId())
+                    .setPageView(io.confluent.developer.proto.PageView.newBuilder()
+                            .setUrl(pageView.getUrl())
+                            .setIsSpecial(pageView.getIsSpecial())
+                            .setCustomerId(pageView.getCustomerId()))
+                    .build();
+        }
+        return null;
+    }
+
+    static Object jsonFromAvro(final SpecificRecord event) {
+        if (event instanceof Purchase) {
+            Purchase purchase = (Purchase) event;
+            return new io.confluent.developer.json.Purchase()
+                    .withItem(purchase.getItem())
+                    .withAmount(purchase.getAmount())
+                    .withCustomerId(purchase.getCustomerId());
+        } else if (event instanceof PageView) {
+            PageView pageView = (PageView) event;
+            return new io.confluent.developer.json.PageView()
+                    .withUrl(pageView.getUrl())
+                    .withIsSpecial(pageView.getIsSpecial())
+                    .withCustomerId(pageView.getCustomerId());
+        }
+        return null;
+    }
+
+    static SpecificRecord unwrap(final CustomerEvent event) {
+        return (SpecificRecord) event.getAction();
+    }
+
+    static CustomerEvent wrap(final SpecificRecord event) {
+        if (event instanceof Purchase) {
+            return CustomerEvent.newBuilder().setAction(event).setId(((Purchase) event).getCustomerId()).build();
+        } else if (event instanceof PageView) {
+            return CustomerEvent.newBuilder().setAction(event).setId(((PageView) event).getCustomerId()).build();
+        }
+        return null;
+    }
+
+    private static String orEmpty(final String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,227 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.utils.EventDispatcher;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class EventValueTransformerSupplier implements ProcessorSupplier<String, SpecificRecord, String, CustomerInfo> {
+    static final String SIZE_SAMPLE_RATE_CONFIG = "customer.metrics.size.sample.every";
+    static final String EMIT_INTERVAL_CONFIG = "customer.emit.interval.ms";
+
+    private final String storename;
+    private final EventDispatcher<SpecificRecord, CustomerInfo> dispatcher;
+    private final CustomerInfoAggregator aggregator;
+    private Serializer<CustomerInfo> sizeSerializer;
+    private String sizeTopic;
+    private int sizeSampleEvery;
+    private Duration emitInterval;
+    private String dirtyStoreName;
+
+    /**
+     * Every update is written to the store right away and, unless {@link #withEmitInterval} is used, forwarded
+     * right away too.  Repeated updates of a key only reach RocksDB and the changelog once per commit, thanks to
+     * the store's record cache, but each of them is still forwarded and serialized to the output topic.
+     */
+    public EventValueTransformerSupplier(String storename, CustomerInfoAggregator aggregator) {
+        this.storename = storename;
+        this.aggregator = aggregator;
+        this.dispatcher = EventDispatcher.<SpecificRecord, CustomerInfo>avro()
+                .register(PageView.SCHEMA$.getFullName(), PageView.class,
+                        (pageView, customerInfo) -> aggregator.addPageView(customerInfo, pageView))
+                .register(Purchase.SCHEMA$.getFullName(), Purchase.class,
+                        (purchase, customerInfo) -> aggregator.addPurchase(customerInfo, purchase))
+                .onUnknown((event, customerInfo) -> {
+                    throw new IllegalArgumentException("Unrecognized event type " + event.getSchema().getFullName());
+                })
+                .build();
+    }
+
+    /**
+     * Serializes every {@code sampleEvery}th updated CustomerInfo to record its size, 0 turns sampling off.
+     * The topic should be the one CustomerInfo is written to, so the serializer uses its existing subject.
+     */
+    public EventValueTransformerSupplier withSizeSampling(Serializer<CustomerInfo> serializer, String topic, int sampleEvery) {
+        this.sizeSerializer = serializer;
+        this.sizeTopic = topic;
+        this.sizeSampleEvery = sampleEvery;
+        return this;
+    }
+
+    /**
+     * Wraps the event deserializer so events of types the processor has no handler for fail to deserialize.
+     * That hands them to the deserialization exception handler along with the bytes they were read from, so
+     * the {@link DeadLetterDeserializationHandler} can park them as they were.  Without the wrapper they reach
+     * the processor, which logs and skips them like events the aggregator fails on.
+     */
+    public <T extends SpecificRecord> Deserializer<T> rejectingUnhandledEvents(Deserializer<T> inner) {
+        return new Deserializer<>() {
+            @Override
+            public void configure(Map<String, ?> configs, boolean isKey) {
+                inner.configure(configs, isKey);
+            }
+
+            @Override
+            public T deserialize(String topic, byte[] data) {
+                return rejectUnhandled(inner.deserialize(topic, data));
+            }
+
+            @Override
+            public T deserialize(String topic, Headers headers, byte[] data) {
+                return rejectUnhandled(inner.deserialize(topic, headers, data));
+            }
+
+            @Override
+            public void close() {
+                inner.close();
+            }
+        };
+    }
+
+    private <T extends SpecificRecord> T rejectUnhandled(T event) {
+        if (event != null && !dispatcher.handles(event.getSchema().getFullName())) {
+            throw new SerializationException("Unrecognized event type " + event.getSchema().getFullName());
+        }
+        return event;
+    }
+
+    /**
+     * Forwards the updated customers every {@code interval} of wall clock time instead of on every event, so a
+     * customer updated many times in between is only written to the output topic once, with its latest value.
+     * The updated keys are tracked in {@code dirtyStoreName}, see {@link #dirtyStore(String)}, which is
+     * changelogged like the customer store, so under exactly-once a key is either still marked or its update
+     * was written in the same transaction that cleared the mark.
+     */
+    public EventValueTransformerSupplier withEmitInterval(Duration interval, String dirtyStoreName) {
+        this.emitInterval = interval;
+        this.dirtyStoreName = dirtyStoreName;
+        return this;
+    }
+
+    /**
+     * The store {@link #withEmitInterval} tracks the updated keys in, mapped to the timestamp of their latest event
+     */
+    public static StoreBuilder<KeyValueStore<String, Long>> dirtyStore(String name) {
+        return Stores.keyValueStoreBuilder(Stores.inMemoryKeyValueStore(name), Serdes.String(), Serdes.Long())
+                .withLoggingEnabled(Map.of())
+                .withCachingEnabled();
+    }
+
+    @Override
+    public Processor<String, SpecificRecord, String, CustomerInfo> get() {
+        return new Processor<>() {
+            private KeyValueStore<String, CustomerInfo> store;
+            private KeyValueStore<String, Long> dirty;
+            private ProcessorContext<String, CustomerInfo> context;
+            private CustomerProcessorMetrics metrics;
+            private int sinceLastSample;
+
+            @Override
+            public void init(ProcessorContext<String, CustomerInfo> context) {
+                store = context.getStateStore(storename);
+                this.context = context;
+                metrics = new CustomerProcessorMetrics(context.metrics(), context.taskId().toString());
+                if (emitInterval != null) {
+                    dirty = context.getStateStore(dirtyStoreName);
+                    context.schedule(emitInterval, PunctuationType.WALL_CLOCK_TIME, timestamp -> emitDirty());
+                }
+            }
+
+            @Override
+            public void process(Record<String, SpecificRecord> record) {
+                long start = System.nanoTime();
+                String readOnlyKey = record.key();
+                SpecificRecord value = record.value();
+                metrics.recordEvent(value.getSchema().getFullName());
+                // the store deserializes a new CustomerInfo on every get, so the aggregate is updated on a private
+                // copy and an update the aggregator fails half way through is dropped along with the copy
+                CustomerInfo customerInfo = get(readOnlyKey);
+                if (customerInfo == null) {
+                    customerInfo = aggregator.newCustomerInfo(readOnlyKey);
+                }
+                try {
+                    dispatcher.dispatch(value, customerInfo);
+                } catch (RuntimeException e) {
+                    skip(record, e);
+                    return;
+                }
+                put(readOnlyKey, customerInfo);
+                if (dirty == null) {
+                    context.forward(record.withValue(customerInfo));
+                } else {
+                    dirty.put(readOnlyKey, record.timestamp());
+                }
+                metrics.recordProcessLatency(System.nanoTime() - start);
+            }
+
+            private void emitDirty() {
+                // collected first, the in-memory store's iterator shouldn't see its own deletes
+                List<String> emitted = new ArrayList<>();
+                try (KeyValueIterator<String, Long> iterator = dirty.all()) {
+                    while (iterator.hasNext()) {
+                        KeyValue<String, Long> next = iterator.next();
+                        CustomerInfo customerInfo = store.get(next.key);
+                        if (customerInfo != null) {
+                            context.forward(new Record<>(next.key, customerInfo, next.value));
+                        }
+                        emitted.add(next.key);
+                    }
+                }
+                for (String key : emitted) {
+                    dirty.delete(key);
+                }
+            }
+
+            @Override
+            public void close() {
+                metrics.close();
+            }
+
+            private CustomerInfo get(String key) {
+                long start = System.nanoTime();
+                CustomerInfo customerInfo = store.get(key);
+                metrics.recordStoreGetLatency(System.nanoTime() - start);
+                return customerInfo;
+            }
+
+            private void put(String key, CustomerInfo customerInfo) {
+                long start = System.nanoTime();
+                store.put(key, customerInfo);
+                metrics.recordStorePutLatency(System.nanoTime() - start);
+                if (sizeSerializer != null && sizeSampleEvery > 0 && ++sinceLastSample >= sizeSampleEvery) {
+                    sinceLastSample = 0;
+                    metrics.recordCustomerInfoSize(sizeSerializer.serialize(sizeTopic, customerInfo).length);
+                }
+            }
+
+            private void skip(Record<String, SpecificRecord> record, RuntimeException error) {
+                metrics.recordSkipped();
+                String source = context.recordMetadata()
+                        .map(metadata -> metadata.topic() + "-" + metadata.partition() + " at " + metadata.offset())
+                        .orElse(null);
+                System.err.printf("Skipping event for %s from %s %s %n", record.key(), source, error);
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.streams.EventTranscoder.Format;
+import io.confluent.developer.utils.PropertiesLoader;
+import io.confluent.developer.utils.SchemaCache;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializerConfig;
+import io.confluent.kafka.streams.serdes.json.KafkaJsonSchemaSerde;
+import io.confluent.kafka.streams.serdes.protobuf.KafkaProtobufSerde;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Streams app copying the events of one multi-event topic into another topic in a different format,
+ * e.g. JSON Schema into an Avro union topic, so producers can move to a compact binary format while
+ * existing consumers keep reading the old topic.
+ */
+public class FormatBridge {
+
+    static final String SOURCE_FORMAT_CONFIG = "bridge.source.format";
+    static final String TARGET_FORMAT_CONFIG = "bridge.target.format";
+    static final String OUTPUT_TOPIC_CONFIG = "bridge.output.topic.name";
+    static final String APPLICATION_ID_CONFIG = "bridge.application.id";
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Must provide path to properties file for configurations");
+            System.exit(1);
+        }
+
+        var streamsProperties = PropertiesLoader.load(args[0]);
+        var mapConfigs = new HashMap<String, Object>();
+        streamsProperties.forEach((k, v) -> mapConfigs.put((String) k, v));
+        streamsProperties.put(StreamsConfig.APPLICATION_ID_CONFIG,
+                streamsProperties.getProperty(APPLICATION_ID_CONFIG, "multi-event-format-bridge"));
+
+        Format source = Format.of(streamsProperties.getProperty(SOURCE_FORMAT_CONFIG, "json"));
+        Format target = Format.of(streamsProperties.getProperty(TARGET_FORMAT_CONFIG, "avro"));
+        String inputTopic = topicFor(source, streamsProperties);
+        String outputTopic = streamsProperties.getProperty(OUTPUT_TOPIC_CONFIG, topicFor(target, streamsProperties));
+
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.stream(inputTopic, Consumed.with(Serdes.String(), serdeFor(source, mapConfigs))
+                        .withOffsetResetPolicy(Topology.AutoOffsetReset.EARLIEST))
+                .mapValues(EventTranscoder.transcoder(source, target)::apply)
+                .filter((key, value) -> value != null)
+                .to(outputTopic, Produced.with(Serdes.String(), serdeFor(target, mapConfigs)));
+
+        try (KafkaStreams kafkaStreams = new KafkaStreams(builder.build(), streamsProperties)) {
+            CountDownLatch countDownLatch = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                kafkaStreams.close(Duration.ofSeconds(5));
+                countDownLatch.countDown();
+            }));
+            System.out.printf("Bridging %s events from %s to %s events in %s %n", source, inputTopic, target, outputTopic);
+            kafkaStreams.start();
+            countDownLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String topicFor(final Format format, final Properties properties) {
+        switch (format) {
+            case AVRO:
+                return properties.getProperty("avro.topic");
+            case AVRO_WRAPPED:
+                return properties.getProperty("avro.wrapped.topic");
+            case PROTO:
+                return properties.getProperty("proto.topic");
+            default:
+                return properties.getProperty("json.topic");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Serde<Object> serdeFor(final Format format, final Map<String, Object> baseConfigs) {
+        final Map<String, Object> configs = new HashMap<>(baseConfigs);
+        final Serde<?> serde;
+        switch (format) {
+            case AVRO:
+                // the union topic has its schema registered up front, see build.gradle
+                configs.put(AbstractKafkaSchemaSerDeConfig.AUTO_REGISTER_SCHEMAS, false);
+                configs.put(AbstractKafkaSchemaSerDeConfig.USE_LATEST_VERSION, true);
+                serde = MultiEventKafkaStreamsExample.getSpecificAvroSerde(configs);
+                break;
+            case AVRO_WRAPPED:
+                serde = MultiEventKafkaStreamsExample.getSpecificAvroSerde(configs);
+                break;
+            case PROTO:
+                KafkaProtobufSerde<io.confluent.developer.proto.CustomerEvent> protobufSerde =
+                        new KafkaProtobufSerde<>(SchemaCache.client(configs), io.confluent.developer.proto.CustomerEvent.class);
+                protobufSerde.configure(configs, false);
+                serde = protobufSerde;
+                break;
+            default:
+                configs.put(AbstractKafkaSchemaSerDeConfig.AUTO_REGISTER_SCHEMAS, false);
+                configs.put(AbstractKafkaSchemaSerDeConfig.USE_LATEST_VERSION, true);
+                configs.put(AbstractKafkaSchemaSerDeConfig.LATEST_COMPATIBILITY_STRICT, false);
+                configs.put(KafkaJsonSchemaDeserializerConfig.TYPE_PROPERTY, "javaTypeName");
+                KafkaJsonSchemaSerde<Object> jsonSchemaSerde = new KafkaJsonSchemaSerde<>(SchemaCache.client(configs));
+                jsonSchemaSerde.configure(configs, false);
+                serde = jsonSchemaSerde;
+        }
+        return (Serde<Object>) serde;
+    }
+}
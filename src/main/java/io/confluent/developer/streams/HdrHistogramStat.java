@@ -0,0 +1,73 @@
+package io.confluent.developer.streams;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.CompoundStat;
+import org.apache.kafka.common.metrics.MetricConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports percentiles and the max of the values recorded on a sensor using an HdrHistogram.
+ * Recording is wait-free, readers see the distribution of the last completed interval of
+ * {@code intervalMs}, so the metrics reflect recent behavior rather than the lifetime of the app.
+ */
+public class HdrHistogramStat implements CompoundStat {
+
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+    private static final String[] SUFFIXES = {"-p50", "-p99", "-p999"};
+
+    private final String name;
+    private final String group;
+    private final String description;
+    private final Map<String, String> tags;
+    private final long intervalMs;
+    private final Recorder recorder = new Recorder(3);
+    private Histogram interval;
+    private long lastSwapMs;
+
+    public HdrHistogramStat(final String name,
+                            final String group,
+                            final String description,
+                            final Map<String, String> tags,
+                            final long intervalMs) {
+        this.name = name;
+        this.group = group;
+        this.description = description;
+        this.tags = tags;
+        this.intervalMs = intervalMs;
+        this.interval = recorder.getIntervalHistogram();
+        this.lastSwapMs = System.currentTimeMillis();
+    }
+
+    @Override
+    public void record(final MetricConfig config, final double value, final long timeMs) {
+        recorder.recordValue(Math.max(0, (long) value));
+    }
+
+    @Override
+    public List<NamedMeasurable> stats() {
+        final List<NamedMeasurable> stats = new ArrayList<>();
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            final double percentile = PERCENTILES[i];
+            stats.add(new NamedMeasurable(
+                    new MetricName(name + SUFFIXES[i], group, description + " " + percentile + "th percentile", tags),
+                    (config, now) -> snapshot(now).getValueAtPercentile(percentile)));
+        }
+        stats.add(new NamedMeasurable(
+                new MetricName(name + "-hdr-max", group, description + " max", tags),
+                (config, now) -> snapshot(now).getMaxValue()));
+        return stats;
+    }
+
+    private synchronized Histogram snapshot(final long now) {
+        if (now - lastSwapMs >= intervalMs) {
+            interval = recorder.getIntervalHistogram(interval);
+            lastSwapMs = now;
+        }
+        return interval;
+    }
+}
@@ -0,0 +1,33 @@
+package io.confluent.developer.streams;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.processor.StateRestoreListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports how long each store partition takes to restore from its changelog,
+ * useful for comparing the different {@link CustomerStores.StoreType}s on restart.
+ */
+public class LoggingRestoreListener implements StateRestoreListener {
+
+    private final Map<TopicPartition, Long> restoreStartTimes = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRestoreStart(final TopicPartition topicPartition, final String storeName, final long startingOffset, final long endingOffset) {
+        restoreStartTimes.put(topicPartition, System.currentTimeMillis());
+        System.out.printf("Restoring %s from %s offsets %d to %d %n", storeName, topicPartition, startingOffset, endingOffset);
+    }
+
+    @Override
+    public void onBatchRestored(final TopicPartition topicPartition, final String storeName, final long batchEndOffset, final long numRestored) {
+    }
+
+    @Override
+    public void onRestoreEnd(final TopicPartition topicPartition, final String storeName, final long totalRestored) {
+        final Long start = restoreStartTimes.remove(topicPartition);
+        final long elapsed = start == null ? 0 : System.currentTimeMillis() - start;
+        System.out.printf("Restored %d records into %s from %s in %d ms %n", totalRestored, storeName, topicPartition, elapsed);
+    }
+}
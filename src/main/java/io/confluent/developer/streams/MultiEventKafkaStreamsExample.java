@@ -1,32 +1,38 @@
 package io.confluent.developer.streams;
 
 import io.confluent.developer.avro.CustomerInfo;
-import io.confluent.developer.avro.PageView;
-import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.avro.CustomerWindowSummary;
+import io.confluent.developer.avro.EnrichedEvent;
+import io.confluent.developer.utils.DeadLetterQueue;
+import io.confluent.developer.utils.EventTypeFilteringDeserializer;
 import io.confluent.developer.utils.PropertiesLoader;
+import io.confluent.developer.utils.SchemaCache;
 import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
 import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.Topology;
 import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
 import org.apache.kafka.streams.kstream.Produced;
-import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
-import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
-import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
-import org.apache.kafka.streams.processor.api.FixedKeyRecord;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StoreBuilder;
-import org.apache.kafka.streams.state.Stores;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 
 public class MultiEventKafkaStreamsExample {
 
+    static final String PRINT_OUTPUT_CONFIG = "streams.print.output";
+    static final String CUSTOMER_STORE = "the_store";
+
     public static void main(String[] args) {
         if (args.length < 1) {
             System.out.println("Must provide path to properties file for configurations");
@@ -34,86 +40,139 @@ public class MultiEventKafkaStreamsExample {
         }
 
         var streamsProperties = PropertiesLoader.load(args[0]);
+        StreamsProfiles.apply(streamsProperties);
+        CustomerStores.configure(streamsProperties);
+        if (DeadLetterQueue.enabled(streamsProperties)) {
+            streamsProperties.putIfAbsent(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
+                    DeadLetterDeserializationHandler.class.getName());
+        }
+        var schemaConfigs = new HashMap<String, Object>();
+        streamsProperties.forEach((k, v) -> schemaConfigs.put((String) k, v));
+        SchemaCache.prewarm(schemaConfigs);
+
+        try (KafkaStreams kafkaStreams = new KafkaStreams(buildTopology(streamsProperties), streamsProperties);
+             StreamThreadScaler scaler = new StreamThreadScaler(kafkaStreams, streamsProperties);
+             // the exporter checks its codec when constructed, so it's only built when snapshots are on
+             CustomerSnapshotExporter snapshotExporter = CustomerSnapshotExporter.enabled(streamsProperties)
+                     ? new CustomerSnapshotExporter(kafkaStreams, CUSTOMER_STORE, streamsProperties) : null) {
+            CountDownLatch countDownLatch = new CountDownLatch(1);
+            kafkaStreams.setGlobalStateRestoreListener(new LoggingRestoreListener());
+            kafkaStreams.setUncaughtExceptionHandler(new ThreadReplacementHandler(streamsProperties));
+            kafkaStreams.setStateListener((newState, oldState) -> {
+                if (newState == KafkaStreams.State.NOT_RUNNING || newState == KafkaStreams.State.ERROR) {
+                    countDownLatch.countDown();
+                }
+            });
+            CustomerQueryServer queryServer = CustomerQueryServer.enabled(streamsProperties)
+                    ? new CustomerQueryServer(kafkaStreams, CUSTOMER_STORE, streamsProperties) : null;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (queryServer != null) {
+                    queryServer.close();
+                }
+                scaler.close();
+                if (snapshotExporter != null) {
+                    snapshotExporter.close();
+                }
+                kafkaStreams.close(Duration.ofSeconds(30));
+                DeadLetterQueue.closeAll();
+                countDownLatch.countDown();
+            }));
+            kafkaStreams.start();
+            if (StreamThreadScaler.enabled(streamsProperties)) {
+                scaler.start();
+            }
+            if (queryServer != null) {
+                queryServer.start();
+            }
+            if (snapshotExporter != null) {
+                snapshotExporter.start();
+            }
+            countDownLatch.await();
+        } catch (IOException e) {
+            System.err.printf("Starting the query server failed %s %n", e);
+            System.exit(1);
+        } catch (InterruptedException e) {
+             Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Builds the topology from the properties, expects {@link CustomerStores#configure(Properties)} to have run
+     */
+    static Topology buildTopology(final Properties streamsProperties) {
         var mapConfigs = new HashMap<String, Object>();
         streamsProperties.forEach((k, v) -> mapConfigs.put((String) k, v));
 
         SpecificAvroSerde<CustomerInfo> customerSerde = getSpecificAvroSerde(mapConfigs);
         SpecificAvroSerde<SpecificRecord> specificAvroSerde = getSpecificAvroSerde(mapConfigs);
 
+        boolean printOutput = Boolean.parseBoolean(streamsProperties.getProperty(PRINT_OUTPUT_CONFIG, "true"));
         String inputTopic = streamsProperties.getProperty("streams.input.topic.name");
         String outputTopic = streamsProperties.getProperty("streams.output.topic.name");
+        CustomerInfoAggregator aggregator = CustomerInfoAggregator.fromProperties(streamsProperties);
 
         StreamsBuilder builder = new StreamsBuilder();
-        String storeName = "the_store";
-        final StoreBuilder<KeyValueStore<String, CustomerInfo>> customerStore = Stores.keyValueStoreBuilder(
-                Stores.inMemoryKeyValueStore(storeName),
-                Serdes.String(),
-                customerSerde);
+        String storeName = CUSTOMER_STORE;
+        int sizeSampleEvery = Integer.parseInt(streamsProperties.getProperty(EventValueTransformerSupplier.SIZE_SAMPLE_RATE_CONFIG, "100"));
+        EventValueTransformerSupplier transformerSupplier = new EventValueTransformerSupplier(storeName, aggregator)
+                .withSizeSampling(customerSerde.serializer(), outputTopic, sizeSampleEvery);
+        final StoreBuilder<KeyValueStore<String, CustomerInfo>> customerStore =
+                CustomerStores.customerStore(storeName, customerSerde, streamsProperties);
 
         builder.addStateStore(customerStore);
+        String[] storeNames = {storeName};
+        long emitIntervalMs = Long.parseLong(streamsProperties.getProperty(EventValueTransformerSupplier.EMIT_INTERVAL_CONFIG, "0"));
+        if (emitIntervalMs > 0) {
+            String dirtyStoreName = storeName + "-dirty";
+            builder.addStateStore(EventValueTransformerSupplier.dirtyStore(dirtyStoreName));
+            transformerSupplier.withEmitInterval(Duration.ofMillis(emitIntervalMs), dirtyStoreName);
+            storeNames = new String[] {storeName, dirtyStoreName};
+        }
 
-        builder.stream(inputTopic, Consumed.with(Serdes.String(), specificAvroSerde)
-                .withOffsetResetPolicy(Topology.AutoOffsetReset.EARLIEST))
-                .processValues(new EventValueTransformerSupplier(storeName), storeName)
-                .peek((k, v) -> System.out.printf("Customer info %s %n", v))
-                .to(outputTopic, Produced.with(Serdes.String(), customerSerde));
+        Serde<SpecificRecord> eventSerde = eventTypeFilteringSerde(specificAvroSerde, mapConfigs);
+        if (DeadLetterQueue.enabled(mapConfigs)) {
+            eventSerde = Serdes.serdeFrom(eventSerde.serializer(), transformerSupplier.rejectingUnhandledEvents(eventSerde.deserializer()));
+        }
+        KStream<String, SpecificRecord> events = builder.stream(inputTopic,
+                        Consumed.with(Serdes.String(), eventSerde)
+                                .withOffsetResetPolicy(Topology.AutoOffsetReset.EARLIEST))
+                .filter((key, value) -> value != null);
+
+        if (WindowedCustomerAnalytics.enabled(streamsProperties)) {
+            SpecificAvroSerde<CustomerWindowSummary> summarySerde = getSpecificAvroSerde(mapConfigs);
+            WindowedCustomerAnalytics.addTo(events, specificAvroSerde, summarySerde, streamsProperties);
+        }
 
-        try (KafkaStreams kafkaStreams = new KafkaStreams(builder.build(), streamsProperties)) {
-            CountDownLatch countDownLatch = new CountDownLatch(1);
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> kafkaStreams.close(Duration.ofSeconds(5))));
-            kafkaStreams.start();
-            countDownLatch.await();
-        } catch (InterruptedException e) {
-             Thread.currentThread().interrupt();
+        if (CustomerEnrichment.enabled(streamsProperties)) {
+            SpecificAvroSerde<EnrichedEvent> enrichedSerde = getSpecificAvroSerde(mapConfigs);
+            CustomerEnrichment.addTo(builder, events, customerSerde, enrichedSerde, streamsProperties);
         }
+
+        KStream<String, CustomerInfo> customerInfos = events.process(transformerSupplier, storeNames);
+        if (printOutput) {
+            customerInfos = customerInfos.peek((k, v) -> System.out.printf("Customer info %s %n", v));
+        }
+        customerInfos.to(outputTopic, Produced.with(Serdes.String(), customerSerde));
+
+        return builder.build();
     }
 
+    /**
+     * Skips decoding of the event types left out of {@code avro.wanted.event.types}, those records
+     * arrive as {@code null} values and are filtered out right after the source
+     */
+    static <T extends SpecificRecord> Serde<T> eventTypeFilteringSerde(final SpecificAvroSerde<T> serde,
+                                                                       final Map<String, Object> configs) {
+        final EventTypeFilteringDeserializer<T> deserializer = new EventTypeFilteringDeserializer<>(
+                serde.deserializer(), EventTypeFilteringDeserializer.wantedTypes(configs));
+        deserializer.configure(configs, false);
+        return Serdes.serdeFrom(serde.serializer(), deserializer);
+    }
 
     static <T extends SpecificRecord> SpecificAvroSerde<T> getSpecificAvroSerde(final Map<String, Object> configs) {
-        final SpecificAvroSerde<T> specificAvroSerde = new SpecificAvroSerde<>();
+        final SpecificAvroSerde<T> specificAvroSerde = new SpecificAvroSerde<>(SchemaCache.client(configs));
         specificAvroSerde.configure(configs, false);
         return specificAvroSerde;
     }
-
-
-    static class EventValueTransformerSupplier implements FixedKeyProcessorSupplier<String, SpecificRecord, CustomerInfo> {
-        private final String storename;
-
-        public EventValueTransformerSupplier(String storename) {
-            this.storename = storename;
-        }
-
-        @Override
-        public FixedKeyProcessor<String, SpecificRecord, CustomerInfo> get() {
-            return new FixedKeyProcessor<>() {
-                private KeyValueStore<String, CustomerInfo> store;
-                private FixedKeyProcessorContext<String,CustomerInfo> context;
-                @Override
-                public void init(FixedKeyProcessorContext<String, CustomerInfo> context) {
-                    store = context.getStateStore(storename);
-                    this.context = context;
-                }
-
-                @Override
-                public void process(FixedKeyRecord<String, SpecificRecord> fixedKeyRecord) {
-                    String readOnlyKey = fixedKeyRecord.key();
-                    SpecificRecord value = fixedKeyRecord.value();
-                    CustomerInfo customerInfo = store.get(readOnlyKey);
-                    if (customerInfo == null) {
-                        customerInfo = CustomerInfo.newBuilder().setCustomerId(readOnlyKey).build();
-                    }
-                    if (value instanceof PageView) {
-                        PageView pageView = (PageView) value;
-                        customerInfo.getPageViews().add(pageView.getUrl());
-
-                    } else if (value instanceof Purchase) {
-                        Purchase purchase = (Purchase) value;
-                        customerInfo.getItems().add(purchase.getItem());
-                    }
-                    store.put(readOnlyKey, customerInfo);
-                    context.forward(fixedKeyRecord.withValue(customerInfo));
-                }
-            };
-        }
-    }
 }
@@ -0,0 +1,69 @@
+package io.confluent.developer.streams;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small LRU cache with a time to live in front of a slower lookup.  Misses are cached as well,
+ * so repeated events for customers without a profile don't go to the store each time.
+ * Not thread safe, meant to be owned by a single processor instance.
+ */
+public class ReadThroughCache<K, V> {
+
+    private final Function<K, V> loader;
+    private final long ttlMs;
+    private final Map<K, Entry<V>> entries;
+    private long hits;
+    private long misses;
+
+    public ReadThroughCache(final Function<K, V> loader, final int maxEntries, final long ttlMs) {
+        this.loader = loader;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, ReadThroughCache.Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public V get(final K key, final long nowMs) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAtMs > nowMs) {
+            hits++;
+            return entry.value;
+        }
+        misses++;
+        final V value = loader.apply(key);
+        if (entry == null) {
+            entries.put(key, new Entry<>(value, nowMs + ttlMs));
+        } else {
+            entry.value = value;
+            entry.expiresAtMs = nowMs + ttlMs;
+        }
+        return value;
+    }
+
+    public void invalidate(final K key) {
+        entries.remove(key);
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    private static final class Entry<V> {
+        private V value;
+        private long expiresAtMs;
+
+        private Entry(final V value, final long expiresAtMs) {
+            this.value = value;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
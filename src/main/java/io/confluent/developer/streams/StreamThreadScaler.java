@@ -0,0 +1,144 @@
+package io.confluent.developer.streams;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.TaskMetadata;
+import org.apache.kafka.streams.ThreadMetadata;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds or removes stream threads based on the consumer lag of the running instance.  A thread is added
+ * while the highest {@code records-lag-max} across the stream threads stays above the high watermark and
+ * one is removed when it falls below the low watermark, within the configured min and max thread counts.
+ * Threads beyond the partition count of the widest input topic would sit idle, so that caps the count too.
+ * After a step no check runs for {@code streams.scaling.cooldown.ms}, giving the rebalance and the new
+ * thread time to settle before the lag is judged again.
+ */
+public class StreamThreadScaler implements AutoCloseable {
+
+    static final String ENABLED_CONFIG = "streams.scaling.enabled";
+    static final String MIN_THREADS_CONFIG = "streams.scaling.min.threads";
+    static final String MAX_THREADS_CONFIG = "streams.scaling.max.threads";
+    static final String LAG_HIGH_CONFIG = "streams.scaling.lag.high.watermark";
+    static final String LAG_LOW_CONFIG = "streams.scaling.lag.low.watermark";
+    static final String CHECK_INTERVAL_CONFIG = "streams.scaling.check.interval.ms";
+    static final String COOLDOWN_CONFIG = "streams.scaling.cooldown.ms";
+
+    private final KafkaStreams kafkaStreams;
+    private final int minThreads;
+    private final int maxThreads;
+    private final double lagHigh;
+    private final double lagLow;
+    private final long checkIntervalMs;
+    private final long cooldownMs;
+    private long lastStepMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "stream-thread-scaler"));
+
+    public StreamThreadScaler(final KafkaStreams kafkaStreams, final Properties properties) {
+        this.kafkaStreams = kafkaStreams;
+        this.minThreads = Integer.parseInt(properties.getProperty(MIN_THREADS_CONFIG, "1"));
+        this.maxThreads = Integer.parseInt(properties.getProperty(MAX_THREADS_CONFIG, "8"));
+        this.lagHigh = Double.parseDouble(properties.getProperty(LAG_HIGH_CONFIG, "10000"));
+        this.lagLow = Double.parseDouble(properties.getProperty(LAG_LOW_CONFIG, "100"));
+        this.checkIntervalMs = Long.parseLong(properties.getProperty(CHECK_INTERVAL_CONFIG, "60000"));
+        this.cooldownMs = Long.parseLong(properties.getProperty(COOLDOWN_CONFIG, "300000"));
+    }
+
+    public static boolean enabled(final Properties properties) {
+        return Boolean.parseBoolean(properties.getProperty(ENABLED_CONFIG, "false"));
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void check() {
+        if (kafkaStreams.state() != KafkaStreams.State.RUNNING
+                || (lastStepMs > 0 && System.currentTimeMillis() - lastStepMs < cooldownMs)) {
+            return;
+        }
+        try {
+            final double lag = maxRecordsLag();
+            final Collection<ThreadMetadata> localThreads = kafkaStreams.metadataForLocalThreads();
+            final int threads = localThreads.size();
+            if (lag > lagHigh && threads < Math.min(maxThreads, inputPartitions(localThreads))) {
+                kafkaStreams.addStreamThread().ifPresent(name -> {
+                    lastStepMs = System.currentTimeMillis();
+                    System.out.printf("Lag %.0f above %.0f, added %s (%d threads) %n", lag, lagHigh, name, threads + 1);
+                });
+            } else if (lag < lagLow && threads > minThreads) {
+                kafkaStreams.removeStreamThread(Duration.ofSeconds(30)).ifPresent(name -> {
+                    lastStepMs = System.currentTimeMillis();
+                    System.out.printf("Lag %.0f below %.0f, removed %s (%d threads) %n", lag, lagLow, name, threads - 1);
+                });
+            }
+        } catch (RuntimeException e) {
+            System.err.printf("Scaling stream threads failed %s %n", e);
+        }
+    }
+
+    private double maxRecordsLag() {
+        double max = 0;
+        for (Map.Entry<MetricName, ? extends Metric> entry : kafkaStreams.metrics().entrySet()) {
+            final MetricName name = entry.getKey();
+            if ("records-lag-max".equals(name.name())
+                    && "consumer-fetch-manager-metrics".equals(name.group())
+                    && !name.tags().containsKey("topic")
+                    && !isRestoreConsumer(name.tags().get("client-id"))) {
+                final Object value = entry.getValue().metricValue();
+                if (value instanceof Double && !((Double) value).isNaN()) {
+                    max = Math.max(max, (Double) value);
+                }
+            }
+        }
+        return max;
+    }
+
+    private static boolean isRestoreConsumer(final String clientId) {
+        return clientId != null && clientId.endsWith("restore-consumer");
+    }
+
+    /**
+     * The partition count of the widest input topic, the most tasks of any sub-topology.  The assignment of
+     * every instance is known when application.server is set, otherwise only the local threads' partitions are.
+     */
+    private int inputPartitions(final Collection<ThreadMetadata> localThreads) {
+        final Map<String, Integer> partitionsPerTopic = new HashMap<>();
+        for (StreamsMetadata metadata : kafkaStreams.metadataForAllStreamsClients()) {
+            for (TopicPartition partition : metadata.topicPartitions()) {
+                partitionsPerTopic.merge(partition.topic(), 1, Integer::sum);
+            }
+        }
+        if (partitionsPerTopic.isEmpty()) {
+            for (ThreadMetadata thread : localThreads) {
+                for (TaskMetadata task : thread.activeTasks()) {
+                    for (TopicPartition partition : task.topicPartitions()) {
+                        partitionsPerTopic.merge(partition.topic(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        int widest = 0;
+        for (int partitions : partitionsPerTopic.values()) {
+            widest = Math.max(widest, partitions);
+        }
+        return widest;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
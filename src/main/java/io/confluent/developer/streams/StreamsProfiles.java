@@ -0,0 +1,52 @@
+package io.confluent.developer.streams;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Named sets of defaults for the processing guarantee, commit interval, record cache and producer batching,
+ * selected with {@code streams.profile}.  Anything set explicitly in the properties file wins over the profile.
+ * <ul>
+ *     <li>{@code default} changes nothing, at-least-once with the Kafka Streams defaults</li>
+ *     <li>{@code exactly-once} uses {@code exactly_once_v2} with a one second commit interval, so each
+ *     transaction covers many records, plus batching and compression on the output.  End to end latency for
+ *     read_committed consumers is roughly the commit interval.</li>
+ *     <li>{@code exactly-once-low-latency} keeps exactly-once but commits every 100 ms with a small cache,
+ *     trading throughput for fresher output</li>
+ * </ul>
+ */
+public class StreamsProfiles {
+
+    public static final String PROFILE_CONFIG = "streams.profile";
+
+    private static final Map<String, Map<String, Object>> PROFILES = Map.of(
+            "default", Map.of(),
+            "exactly-once", Map.of(
+                    StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2,
+                    StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 1000,
+                    StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 64 * 1024 * 1024L,
+                    StreamsConfig.producerPrefix(ProducerConfig.LINGER_MS_CONFIG), 20,
+                    StreamsConfig.producerPrefix(ProducerConfig.BATCH_SIZE_CONFIG), 128 * 1024,
+                    StreamsConfig.producerPrefix(ProducerConfig.COMPRESSION_TYPE_CONFIG), "lz4"),
+            "exactly-once-low-latency", Map.of(
+                    StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2,
+                    StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 100,
+                    StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 10 * 1024 * 1024L,
+                    StreamsConfig.producerPrefix(ProducerConfig.LINGER_MS_CONFIG), 5,
+                    StreamsConfig.producerPrefix(ProducerConfig.COMPRESSION_TYPE_CONFIG), "lz4"));
+
+    private StreamsProfiles() {
+    }
+
+    public static void apply(final Properties properties) {
+        final String profile = properties.getProperty(PROFILE_CONFIG, "default");
+        final Map<String, Object> defaults = PROFILES.get(profile);
+        if (defaults == null) {
+            throw new IllegalArgumentException("Unknown streams profile " + profile + ", expected one of " + PROFILES.keySet());
+        }
+        defaults.forEach(properties::putIfAbsent);
+    }
+}
@@ -0,0 +1,47 @@
+package io.confluent.developer.streams;
+
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replaces a stream thread that died of a transient error, one with a {@link RetriableException} such as a
+ * broker timeout in its cause chain, up to {@code streams.thread.replacements.max} times over the life of the
+ * instance.  Any other error, or one more transient failure, shuts the client down, so a poison record or a bug
+ * doesn't keep killing and replacing threads.
+ */
+public class ThreadReplacementHandler implements StreamsUncaughtExceptionHandler {
+
+    static final String MAX_REPLACEMENTS_CONFIG = "streams.thread.replacements.max";
+
+    private final int maxReplacements;
+    private final AtomicInteger replacements = new AtomicInteger();
+
+    public ThreadReplacementHandler(final Properties properties) {
+        this.maxReplacements = Integer.parseInt(properties.getProperty(MAX_REPLACEMENTS_CONFIG, "3"));
+    }
+
+    @Override
+    public StreamThreadExceptionResponse handle(final Throwable exception) {
+        if (isTransient(exception)) {
+            final int replacement = replacements.incrementAndGet();
+            if (replacement <= maxReplacements) {
+                System.err.printf("Replacing stream thread (%d of %d) after %s %n", replacement, maxReplacements, exception);
+                return StreamThreadExceptionResponse.REPLACE_THREAD;
+            }
+        }
+        System.err.printf("Shutting down after %s %n", exception);
+        return StreamThreadExceptionResponse.SHUTDOWN_CLIENT;
+    }
+
+    static boolean isTransient(final Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
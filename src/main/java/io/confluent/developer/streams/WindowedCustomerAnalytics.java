@@ -0,0 +1,108 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerWindowSummary;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.utils.EventDispatcher;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.WindowStore;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Adds tumbling and hopping window summaries per customer next to the lifetime {@code CustomerInfo}.
+ * Each summary only holds counts and a total, and suppression emits a single final result per window once
+ * the grace period has passed, so the output is small and doesn't change with the age of the customer.
+ */
+public class WindowedCustomerAnalytics {
+
+    static final String ENABLED_CONFIG = "streams.windowed.enabled";
+    static final String TUMBLING_SIZE_CONFIG = "streams.windowed.tumbling.size.ms";
+    static final String HOPPING_SIZE_CONFIG = "streams.windowed.hopping.size.ms";
+    static final String HOPPING_ADVANCE_CONFIG = "streams.windowed.hopping.advance.ms";
+    static final String GRACE_CONFIG = "streams.windowed.grace.ms";
+    static final String TUMBLING_TOPIC_CONFIG = "streams.windowed.tumbling.topic.name";
+    static final String HOPPING_TOPIC_CONFIG = "streams.windowed.hopping.topic.name";
+
+    private static final EventDispatcher<SpecificRecord, CustomerWindowSummary> DISPATCHER =
+            EventDispatcher.<SpecificRecord, CustomerWindowSummary>avro()
+                    .register(PageView.SCHEMA$.getFullName(), PageView.class, (pageView, summary) -> {
+                        summary.setPageViewCount(summary.getPageViewCount() + 1);
+                        if (pageView.getIsSpecial()) {
+                            summary.setSpecialPageViewCount(summary.getSpecialPageViewCount() + 1);
+                        }
+                    })
+                    .register(Purchase.SCHEMA$.getFullName(), Purchase.class, (purchase, summary) -> {
+                        summary.setPurchaseCount(summary.getPurchaseCount() + 1);
+                        summary.setPurchaseTotal(summary.getPurchaseTotal() + purchase.getAmount());
+                    })
+                    .build();
+
+    private WindowedCustomerAnalytics() {
+    }
+
+    public static boolean enabled(final Properties properties) {
+        return Boolean.parseBoolean(properties.getProperty(ENABLED_CONFIG, "false"));
+    }
+
+    public static void addTo(final KStream<String, SpecificRecord> events,
+                             final Serde<SpecificRecord> eventSerde,
+                             final Serde<CustomerWindowSummary> summarySerde,
+                             final Properties properties) {
+        final Duration grace = durationOf(properties, GRACE_CONFIG, "60000");
+        final Duration tumblingSize = durationOf(properties, TUMBLING_SIZE_CONFIG, "300000");
+        final Duration hoppingSize = durationOf(properties, HOPPING_SIZE_CONFIG, "3600000");
+        final Duration hoppingAdvance = durationOf(properties, HOPPING_ADVANCE_CONFIG, "300000");
+
+        summarize(events, eventSerde, summarySerde, "tumbling-customer-summary",
+                TimeWindows.ofSizeAndGrace(tumblingSize, grace),
+                properties.getProperty(TUMBLING_TOPIC_CONFIG, "customer-summary-tumbling"));
+        summarize(events, eventSerde, summarySerde, "hopping-customer-summary",
+                TimeWindows.ofSizeAndGrace(hoppingSize, grace).advanceBy(hoppingAdvance),
+                properties.getProperty(HOPPING_TOPIC_CONFIG, "customer-summary-hopping"));
+    }
+
+    private static void summarize(final KStream<String, SpecificRecord> events,
+                                  final Serde<SpecificRecord> eventSerde,
+                                  final Serde<CustomerWindowSummary> summarySerde,
+                                  final String storeName,
+                                  final TimeWindows windows,
+                                  final String outputTopic) {
+        events.groupByKey(Grouped.with(Serdes.String(), eventSerde))
+                .windowedBy(windows)
+                .aggregate(() -> CustomerWindowSummary.newBuilder().setCustomerId("").build(),
+                        (customerId, event, summary) -> {
+                            summary.setCustomerId(customerId);
+                            DISPATCHER.dispatch(event, summary);
+                            return summary;
+                        },
+                        Materialized.<String, CustomerWindowSummary, WindowStore<Bytes, byte[]>>as(storeName)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(summarySerde)
+                                // only needs to cover the window and the grace period
+                                .withRetention(Duration.ofMillis(windows.size() + windows.gracePeriodMs())))
+                .suppress(Suppressed.untilWindowCloses(Suppressed.BufferConfig.unbounded()).withName(storeName + "-final"))
+                .toStream()
+                .map((windowedKey, summary) -> {
+                    summary.setWindowStart(windowedKey.window().start());
+                    summary.setWindowEnd(windowedKey.window().end());
+                    return KeyValue.pair(windowedKey.key(), summary);
+                })
+                .to(outputTopic, Produced.with(Serdes.String(), summarySerde));
+    }
+
+    private static Duration durationOf(final Properties properties, final String config, final String defaultValue) {
+        return Duration.ofMillis(Long.parseLong(properties.getProperty(config, defaultValue)));
+    }
+}
@@ -0,0 +1,176 @@
+package io.confluent.developer.utils;
+
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parks records that couldn't be deserialized or handled on a dead-letter topic, so one bad record doesn't
+ * stop the partition it came from.  The original key and value bytes are kept as they were and headers
+ * describe the failure:
+ * <ul>
+ *     <li>{@code dlq.error.class} and {@code dlq.error.message} of the exception</li>
+ *     <li>{@code dlq.source.topic}, {@code dlq.source.partition} and {@code dlq.source.offset} when known</li>
+ *     <li>{@code dlq.schema.id} when the value is in the Schema Registry wire format</li>
+ * </ul>
+ * One producer per cluster and topic is shared by everything in the process.  It's configured from the connection
+ * and security settings plus any {@code producer.} prefixed ones, not from the rest of the app's configs, so it
+ * never joins a Streams transaction.  That's why {@link #send} waits for the dead letter to be acknowledged: the
+ * caller may only commit the offset of the failed record once it's parked.
+ */
+public class DeadLetterQueue implements AutoCloseable {
+
+    public static final String ENABLED_CONFIG = "dlq.enabled";
+    public static final String TOPIC_CONFIG = "dlq.topic.name";
+
+    public static final String ERROR_CLASS_HEADER = "dlq.error.class";
+    public static final String ERROR_MESSAGE_HEADER = "dlq.error.message";
+    public static final String SOURCE_TOPIC_HEADER = "dlq.source.topic";
+    public static final String SOURCE_PARTITION_HEADER = "dlq.source.partition";
+    public static final String SOURCE_OFFSET_HEADER = "dlq.source.offset";
+    public static final String SCHEMA_ID_HEADER = "dlq.schema.id";
+
+    private static final String PRODUCER_PREFIX = "producer.";
+    private static final byte MAGIC_BYTE = 0x0;
+    private static final int HEADER_SIZE = 5;
+    private static final Map<String, DeadLetterQueue> SHARED = new ConcurrentHashMap<>();
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private final LongAdder sent = new LongAdder();
+
+    public DeadLetterQueue(final Producer<byte[], byte[]> producer, final String topic) {
+        this.producer = producer;
+        this.topic = topic;
+    }
+
+    public static boolean enabled(final Map<?, ?> configs) {
+        return Boolean.parseBoolean(String.valueOf(configs.get(ENABLED_CONFIG)));
+    }
+
+    /**
+     * The dead-letter queue for the cluster and {@value #TOPIC_CONFIG} in the configs, created on first use
+     */
+    public static DeadLetterQueue shared(final Map<String, ?> configs) {
+        final Object configuredTopic = configs.get(TOPIC_CONFIG);
+        final String topic = configuredTopic == null ? "dead-letter-events" : configuredTopic.toString();
+        final String key = configs.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG) + "/" + topic;
+        return SHARED.computeIfAbsent(key, ignored -> {
+            final Map<String, Object> producerConfigs = producerConfigs(configs);
+            producerConfigs.put(ProducerConfig.CLIENT_ID_CONFIG, "dead-letter-queue-" + topic);
+            producerConfigs.put(ProducerConfig.ACKS_CONFIG, "all");
+            producerConfigs.remove(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+            return new DeadLetterQueue(new KafkaProducer<>(producerConfigs, new ByteArraySerializer(), new ByteArraySerializer()), topic);
+        });
+    }
+
+    static Map<String, Object> producerConfigs(final Map<String, ?> configs) {
+        final Map<String, Object> producerConfigs = new HashMap<>();
+        configs.forEach((name, value) -> {
+            if (isConnectionConfig(name)) {
+                producerConfigs.put(name, value);
+            }
+        });
+        configs.forEach((name, value) -> {
+            if (name.startsWith(PRODUCER_PREFIX)) {
+                producerConfigs.put(name.substring(PRODUCER_PREFIX.length()), value);
+            }
+        });
+        return producerConfigs;
+    }
+
+    private static boolean isConnectionConfig(final String name) {
+        return name.equals(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG)
+                || name.equals(CommonClientConfigs.CLIENT_DNS_LOOKUP_CONFIG)
+                || name.equals(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG)
+                || name.startsWith("sasl.")
+                || name.startsWith("ssl.");
+    }
+
+    /**
+     * Closes the shared queues, call on shutdown
+     */
+    public static void closeAll() {
+        SHARED.values().forEach(DeadLetterQueue::close);
+        SHARED.clear();
+    }
+
+    /**
+     * Sends the record to the dead-letter topic and waits until it's acknowledged
+     *
+     * @throws KafkaException if the record couldn't be sent, it must not be committed as handled then
+     */
+    public void send(final String sourceTopic,
+                     final Integer sourcePartition,
+                     final Long sourceOffset,
+                     final byte[] key,
+                     final byte[] value,
+                     final Headers originalHeaders,
+                     final Exception error) {
+        final Headers headers = new RecordHeaders();
+        if (originalHeaders != null) {
+            for (Header header : originalHeaders) {
+                headers.add(header);
+            }
+        }
+        header(headers, ERROR_CLASS_HEADER, error.getClass().getName());
+        header(headers, ERROR_MESSAGE_HEADER, String.valueOf(error.getMessage()));
+        header(headers, SOURCE_TOPIC_HEADER, sourceTopic);
+        header(headers, SOURCE_PARTITION_HEADER, sourcePartition);
+        header(headers, SOURCE_OFFSET_HEADER, sourceOffset);
+        header(headers, SCHEMA_ID_HEADER, schemaId(value));
+        final Future<RecordMetadata> result = producer.send(new ProducerRecord<>(topic, null, key, value, headers));
+        // don't leave it waiting in a batch, the caller is blocked until it's acknowledged
+        producer.flush();
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            throw new KafkaException("Dead-lettering a record from " + sourceTopic + "-" + sourcePartition + " at " + sourceOffset + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            throw new InterruptException(e);
+        }
+        sent.increment();
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    /**
+     * The schema id of a value in the Schema Registry wire format, {@code null} for anything else
+     */
+    public static Integer schemaId(final byte[] data) {
+        if (data == null || data.length < HEADER_SIZE || data[0] != MAGIC_BYTE) {
+            return null;
+        }
+        return ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+
+    private static void header(final Headers headers, final String name, final Object value) {
+        if (value != null) {
+            headers.add(name, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
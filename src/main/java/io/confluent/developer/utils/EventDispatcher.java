@@ -0,0 +1,114 @@
+package io.confluent.developer.utils;
+
+import io.confluent.developer.proto.CustomerEvent;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Routes events from a multi-event topic to the handler registered for their type.
+ * The type of an event is resolved by a key function, the Avro schema full name, the JSON Schema
+ * {@code javaTypeName} or the Protobuf {@code ActionCase}, and looked up in a table that's fixed once
+ * {@link Builder#build()} is called.  Dispatching is a single map lookup no matter how many types are
+ * registered and doesn't allocate.
+ *
+ * @param <E> the common type of the events
+ * @param <C> a context passed along to each handler, for example the aggregate being updated
+ */
+public final class EventDispatcher<E, C> {
+
+    private final Function<? super E, ?> typeKey;
+    private final Map<Object, BiConsumer<E, C>> handlers;
+    private final BiConsumer<E, C> unknownHandler;
+
+    private EventDispatcher(final Function<? super E, ?> typeKey,
+                            final Map<Object, BiConsumer<E, C>> handlers,
+                            final BiConsumer<E, C> unknownHandler) {
+        this.typeKey = typeKey;
+        this.handlers = Map.copyOf(handlers);
+        this.unknownHandler = unknownHandler;
+    }
+
+    public static <E, C> Builder<E, C> builder(final Function<? super E, ?> typeKey) {
+        return new Builder<>(typeKey);
+    }
+
+    /**
+     * Keyed on the full name of the record schema, e.g. {@code io.confluent.developer.avro.Purchase}
+     */
+    public static <E extends SpecificRecord, C> Builder<E, C> avro() {
+        return builder(record -> record.getSchema().getFullName());
+    }
+
+    /**
+     * Keyed on the {@code javaTypeName} the JSON Schema deserializer used to create the event
+     */
+    public static <C> Builder<Object, C> jsonSchema() {
+        return builder(event -> event.getClass().getName());
+    }
+
+    /**
+     * Keyed on which field of the {@code action} oneof is set
+     */
+    public static <C> Builder<CustomerEvent, C> protobuf() {
+        return builder(CustomerEvent::getActionCase);
+    }
+
+    public void dispatch(final E event, final C context) {
+        final BiConsumer<E, C> handler = handlers.get(typeKey.apply(event));
+        if (handler != null) {
+            handler.accept(event, context);
+        } else {
+            unknownHandler.accept(event, context);
+        }
+    }
+
+    public boolean handles(final Object key) {
+        return handlers.containsKey(key);
+    }
+
+    public static final class Builder<E, C> {
+        private final Function<? super E, ?> typeKey;
+        private final Map<Object, BiConsumer<E, C>> handlers = new HashMap<>();
+        private BiConsumer<E, C> unknownHandler = (event, context) -> { };
+
+        private Builder(final Function<? super E, ?> typeKey) {
+            this.typeKey = typeKey;
+        }
+
+        /**
+         * Registers a handler receiving the event as is, used when the key doesn't map to a subtype
+         * such as the Protobuf {@code ActionCase}
+         */
+        public Builder<E, C> register(final Object key, final BiConsumer<E, C> handler) {
+            if (handlers.putIfAbsent(Objects.requireNonNull(key), Objects.requireNonNull(handler)) != null) {
+                throw new IllegalArgumentException("A handler is already registered for " + key);
+            }
+            return this;
+        }
+
+        /**
+         * Registers a handler for events of the given subtype, the cast happens once per event
+         * in the wrapper created here rather than in every handler
+         */
+        public <T extends E> Builder<E, C> register(final Object key, final Class<T> type, final BiConsumer<? super T, C> handler) {
+            return register(key, (event, context) -> handler.accept(type.cast(event), context));
+        }
+
+        /**
+         * Called for events with no registered handler, ignored by default
+         */
+        public Builder<E, C> onUnknown(final BiConsumer<E, C> handler) {
+            this.unknownHandler = Objects.requireNonNull(handler);
+            return this;
+        }
+
+        public EventDispatcher<E, C> build() {
+            return new EventDispatcher<>(typeKey, handlers, unknownHandler);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.confluent.developer.utils;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps an Avro deserializer and only decodes the event types the application asked for, everything else
+ * comes back as {@code null} without being decoded.
+ * <p>
+ * The type is resolved from the Schema Registry wire format: the magic byte followed by the 4 byte schema id.
+ * When the id refers to a record schema the record name decides, when it refers to a union, as it does when
+ * producing with {@code use.latest.version} to a topic registered with a top level union, the union branch
+ * index that starts the Avro payload picks the type.  The outcome per schema id is cached so after the first
+ * record of each id the check is a map lookup and a byte read.
+ */
+public class EventTypeFilteringDeserializer<T> implements Deserializer<T> {
+
+    public static final String WANTED_EVENT_TYPES_CONFIG = "avro.wanted.event.types";
+
+    private static final byte MAGIC_BYTE = 0x0;
+    private static final int HEADER_SIZE = 5;
+
+    private final Deserializer<T> inner;
+    private final Set<String> wantedTypes;
+    private final Map<Integer, boolean[]> wantedBySchemaId = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> unionSchemaIds = new ConcurrentHashMap<>();
+    private SchemaRegistryClient client;
+
+    /**
+     * @param wantedTypes full names of the Avro records to decode, an empty set decodes everything
+     */
+    public EventTypeFilteringDeserializer(final Deserializer<T> inner, final Set<String> wantedTypes) {
+        this(inner, wantedTypes, null);
+    }
+
+    public EventTypeFilteringDeserializer(final Deserializer<T> inner, final Set<String> wantedTypes, final SchemaRegistryClient client) {
+        this.inner = inner;
+        this.wantedTypes = Set.copyOf(wantedTypes);
+        this.client = client;
+    }
+
+    /**
+     * Reads the wanted types from the comma separated {@value #WANTED_EVENT_TYPES_CONFIG} property
+     */
+    public static Set<String> wantedTypes(final Map<String, ?> configs) {
+        final Object types = configs.get(WANTED_EVENT_TYPES_CONFIG);
+        if (types == null || types.toString().isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(types.toString().split(","))
+                .map(String::trim)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey) {
+        inner.configure(configs, isKey);
+        if (client == null && !wantedTypes.isEmpty()) {
+            client = SchemaCache.client(configs);
+        }
+    }
+
+    @Override
+    public T deserialize(final String topic, final byte[] data) {
+        return isWanted(data) ? inner.deserialize(topic, data) : null;
+    }
+
+    @Override
+    public T deserialize(final String topic, final Headers headers, final byte[] data) {
+        return isWanted(data) ? inner.deserialize(topic, headers, data) : null;
+    }
+
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    boolean isWanted(final byte[] data) {
+        if (wantedTypes.isEmpty() || data == null || data.length < HEADER_SIZE || data[0] != MAGIC_BYTE) {
+            // let the inner deserializer deal with anything that isn't in the expected format
+            return true;
+        }
+        final int schemaId = ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+        final boolean[] wanted = wantedBySchemaId.computeIfAbsent(schemaId, this::resolve);
+        if (!unionSchemaIds.getOrDefault(schemaId, false)) {
+            return wanted[0];
+        }
+        final int branch = readUnionIndex(data);
+        return branch < 0 || branch >= wanted.length || wanted[branch];
+    }
+
+    private boolean[] resolve(final int schemaId) {
+        final ParsedSchema parsedSchema;
+        try {
+            parsedSchema = client.getSchemaById(schemaId);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Could not resolve schema id " + schemaId, e);
+        }
+        if (!AvroSchema.TYPE.equals(parsedSchema.schemaType())) {
+            throw new SerializationException("Schema id " + schemaId + " is a " + parsedSchema.schemaType() + " schema, not Avro");
+        }
+        final Schema schema = (Schema) parsedSchema.rawSchema();
+        if (schema.getType() == Schema.Type.UNION) {
+            final List<Schema> branches = schema.getTypes();
+            final boolean[] wanted = new boolean[branches.size()];
+            for (int i = 0; i < wanted.length; i++) {
+                wanted[i] = wantedTypes.contains(branches.get(i).getFullName());
+            }
+            unionSchemaIds.put(schemaId, true);
+            return wanted;
+        }
+        return new boolean[]{wantedTypes.contains(schema.getFullName())};
+    }
+
+    /**
+     * Avro writes the union branch as a zig-zag encoded varint, returns -1 if it can't be read
+     */
+    static int readUnionIndex(final byte[] data) {
+        int value = 0;
+        int shift = 0;
+        for (int i = HEADER_SIZE; i < data.length && shift < 32; i++, shift += 7) {
+            final int b = data[i] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        return -1;
+    }
+}
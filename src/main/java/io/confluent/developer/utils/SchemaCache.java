@@ -0,0 +1,179 @@
+package io.confluent.developer.utils;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.SchemaProvider;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchemaProvider;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClientFactory;
+import io.confluent.kafka.schemaregistry.client.rest.entities.SchemaReference;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaProvider;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One Schema Registry client per registry shared by every serializer and deserializer in the process, so a
+ * schema fetched by one serde is a cache hit for the others instead of a registry round trip per instance.
+ * The client caches at most {@code schema.registry.cache.capacity} schemas per subject.
+ * <p>
+ * {@link #prewarm(Map)} fetches the latest version of the subjects the examples use, so the first records don't pay
+ * for the lookups: the Avro and JSON Schema subjects {@code registerSchemasTask} registers from {@code src/main/avro}
+ * and {@code src/main/json}, and the Protobuf subjects the Protobuf serializer auto-registers from
+ * {@code src/main/proto}.
+ * <p>
+ * With {@code schema.registry.offline=true} the client is an in-memory registry loaded from those files instead, for
+ * running without a registry.  Its ids only mean something inside the process: the subjects loaded from files get the
+ * same ids in every process, but anything auto-registered at runtime gets the next free id of that process.  Records
+ * written in offline mode should be read by the same process, e.g. the load generator with
+ * {@code load.mock.producer=true} or a {@code TopologyTestDriver}, not by another app through a real topic.
+ */
+public class SchemaCache {
+
+    public static final String CACHE_CAPACITY_CONFIG = "schema.registry.cache.capacity";
+    public static final String OFFLINE_CONFIG = "schema.registry.offline";
+    public static final String LOCAL_SCHEMA_DIR_CONFIG = "schema.registry.local.dir";
+
+    private static final List<SchemaProvider> PROVIDERS =
+            List.of(new AvroSchemaProvider(), new ProtobufSchemaProvider(), new JsonSchemaProvider());
+
+    // registered in order, references point at subjects earlier in the list
+    private static final List<LocalSubject> LOCAL_SUBJECTS = List.of(
+            new LocalSubject("page-view", AvroSchema.TYPE, "avro/page_view.avsc"),
+            new LocalSubject("purchase", AvroSchema.TYPE, "avro/purchase.avsc"),
+            new LocalSubject("avro-events-value", AvroSchema.TYPE, "avro/all_events.avsc",
+                    new SchemaReference("io.confluent.developer.avro.PageView", "page-view", 1),
+                    new SchemaReference("io.confluent.developer.avro.Purchase", "purchase", 1)),
+            new LocalSubject("json-page-view", JsonSchema.TYPE, "json/page_view.json"),
+            new LocalSubject("json-purchase", JsonSchema.TYPE, "json/purchase.json"),
+            new LocalSubject("json-events-value", JsonSchema.TYPE, "json/all_events.json",
+                    new SchemaReference("page_view.json", "json-page-view", 1),
+                    new SchemaReference("purchase.json", "json-purchase", 1)),
+            new LocalSubject("page_view.proto", ProtobufSchema.TYPE, "proto/page_view.proto"),
+            new LocalSubject("purchase.proto", ProtobufSchema.TYPE, "proto/purchase.proto"),
+            new LocalSubject("proto-events-value", ProtobufSchema.TYPE, "proto/customer_event.proto",
+                    new SchemaReference("purchase.proto", "purchase.proto", 1),
+                    new SchemaReference("page_view.proto", "page_view.proto", 1)));
+
+    private static final String MOCK_URL_PREFIX = "mock://";
+
+    private static final Map<String, SchemaRegistryClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private SchemaCache() {
+    }
+
+    /**
+     * The shared client for the registry in the configs, {@code mock://} urls get the scope's current mock client
+     */
+    public static SchemaRegistryClient client(final Map<String, ?> configs) {
+        if (Boolean.parseBoolean(String.valueOf(configs.get(OFFLINE_CONFIG)))) {
+            final String dir = config(configs, LOCAL_SCHEMA_DIR_CONFIG, "src/main");
+            return CLIENTS.computeIfAbsent("offline:" + dir, key -> {
+                System.out.printf("Serving schemas from %s, ids are local to this process %n", dir);
+                return loadLocal(Path.of(dir));
+            });
+        }
+        final String urls = String.valueOf(configs.get(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG));
+        if (urls.startsWith(MOCK_URL_PREFIX)) {
+            // tests drop scopes between runs, so the cached client is swapped for the scope's current one
+            final SchemaRegistryClient scoped =
+                    MockSchemaRegistry.getClientForScope(urls.substring(MOCK_URL_PREFIX.length()), PROVIDERS);
+            return CLIENTS.merge(urls, scoped, (cached, current) -> current);
+        }
+        final int capacity = Integer.parseInt(config(configs, CACHE_CAPACITY_CONFIG,
+                AbstractKafkaSchemaSerDeConfig.MAX_SCHEMAS_PER_SUBJECT_DEFAULT));
+        return CLIENTS.computeIfAbsent(urls, key -> newClient(key, capacity, configs));
+    }
+
+    /**
+     * Loads the latest version of each known subject into the shared client, subjects that aren't
+     * registered are skipped
+     */
+    public static void prewarm(final Map<String, ?> configs) {
+        final SchemaRegistryClient client = client(configs);
+        final long start = System.nanoTime();
+        int loaded = 0;
+        for (LocalSubject subject : LOCAL_SUBJECTS) {
+            try {
+                final SchemaMetadata metadata = client.getLatestSchemaMetadata(subject.name);
+                client.getSchemaBySubjectAndId(subject.name, metadata.getId());
+                loaded++;
+            } catch (IOException | RestClientException e) {
+                System.out.printf("Not prewarming subject %s %s %n", subject.name, e.getMessage());
+            }
+        }
+        System.out.printf("Prewarmed %d of %d subjects in %d ms %n", loaded, LOCAL_SUBJECTS.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // getOrDefault on a Map<String, ?> doesn't compile with a String default
+    private static String config(final Map<String, ?> configs, final String name, final Object defaultValue) {
+        final Object value = configs.get(name);
+        return String.valueOf(value == null ? defaultValue : value);
+    }
+
+    private static SchemaRegistryClient newClient(final String urls, final int capacity, final Map<String, ?> configs) {
+        return SchemaRegistryClientFactory.newClient(Arrays.asList(urls.split(",")), capacity, PROVIDERS, configs, null);
+    }
+
+    private static SchemaRegistryClient loadLocal(final Path dir) {
+        final MockSchemaRegistryClient client = new MockSchemaRegistryClient(PROVIDERS);
+        final Map<String, String> schemasBySubject = new HashMap<>();
+        for (LocalSubject subject : LOCAL_SUBJECTS) {
+            try {
+                final String schema = Files.readString(dir.resolve(subject.file));
+                final Map<String, String> resolved = new HashMap<>();
+                subject.references.forEach(reference -> resolved.put(reference.getName(), schemasBySubject.get(reference.getSubject())));
+                client.register(subject.name, parse(subject.type, schema, subject.references, resolved));
+                schemasBySubject.put(subject.name, schema);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Reading " + subject.file + " from " + dir + " failed", e);
+            } catch (RestClientException e) {
+                throw new IllegalStateException("Registering subject " + subject.name + " failed", e);
+            }
+        }
+        return client;
+    }
+
+    private static ParsedSchema parse(final String type,
+                                      final String schema,
+                                      final List<SchemaReference> references,
+                                      final Map<String, String> resolved) {
+        switch (type) {
+            case AvroSchema.TYPE:
+                return new AvroSchema(schema, references, resolved, null);
+            case JsonSchema.TYPE:
+                return new JsonSchema(schema, references, resolved, null);
+            default:
+                return new ProtobufSchema(schema, references, resolved, null, null);
+        }
+    }
+
+    private static final class LocalSubject {
+        private final String name;
+        private final String type;
+        private final String file;
+        private final List<SchemaReference> references;
+
+        private LocalSubject(final String name, final String type, final String file, final SchemaReference... references) {
+            this.name = name;
+            this.type = type;
+            this.file = file;
+            this.references = List.of(references);
+        }
+    }
+}
@@ -1,13 +1,42 @@
 package io.confluent.developer.utils;
 
 import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+/**
+ * Creates the example topics, or brings existing ones up to the configured plan.
+ * <p>
+ * Each setting is looked up as {@code topic.<name>.<setting>} first and {@code topic.default.<setting>} second, the
+ * settings are {@code partitions}, {@code replication.factor} and the topic configs {@code min.insync.replicas},
+ * {@code compression.type} and {@code retention.ms}.  Missing topics are created, existing topics with fewer
+ * partitions than planned are expanded and the topic configs are applied to all of them, each step as a single
+ * batched admin call.  Partitions are never removed, Kafka doesn't support that.
+ */
 public class Topics {
 
+    static final String DEFAULT_TOPICS = "avro-events-wrapped,avro-events,proto-events,json-events,output";
+    static final List<String> TOPIC_CONFIGS = List.of(
+            TopicConfig.MIN_IN_SYNC_REPLICAS_CONFIG,
+            TopicConfig.COMPRESSION_TYPE_CONFIG,
+            TopicConfig.RETENTION_MS_CONFIG);
+
     public static void main(String[] args) {
         if (args.length < 1) {
             System.out.println("Must provide path to properties file for configurations");
@@ -15,14 +44,83 @@ public class Topics {
         }
         var adminProps = PropertiesLoader.load(args[0]);
 
-        var topicNames = List.of("avro-events-wrapped", "avro-events", "proto-events", "json-events", "output");
+        var topicNames = Arrays.stream(adminProps.getProperty("topics", DEFAULT_TOPICS).split(","))
+                .map(String::trim)
+                .collect(Collectors.toList());
         try (Admin admin = Admin.create(adminProps)) {
-            var newTopicsList = topicNames.stream()
-                    .map(name -> new NewTopic(name, 1, (short) 3))
-                    .collect(Collectors.toList());
-            System.out.printf("Names of topics to create %s %n", newTopicsList);
-            admin.createTopics(newTopicsList);
-            System.out.println("Created all topics successfully");
+            provision(admin, topicNames, adminProps);
+            System.out.println("Provisioned all topics successfully");
+        } catch (ExecutionException e) {
+            System.err.printf("Provisioning topics failed %s %n", e.getCause());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void provision(final Admin admin, final List<String> topicNames, final Properties props)
+            throws ExecutionException, InterruptedException {
+        var existing = new HashMap<String, TopicDescription>();
+        var existingNames = admin.listTopics().names().get();
+        var toDescribe = topicNames.stream().filter(existingNames::contains).collect(Collectors.toList());
+        if (!toDescribe.isEmpty()) {
+            existing.putAll(admin.describeTopics(toDescribe).allTopicNames().get());
+        }
+
+        var newTopics = new ArrayList<NewTopic>();
+        var newPartitions = new HashMap<String, NewPartitions>();
+        var configUpdates = new HashMap<ConfigResource, Collection<AlterConfigOp>>();
+        for (String name : topicNames) {
+            int partitions = Integer.parseInt(setting(props, name, "partitions", "6"));
+            short replicationFactor = Short.parseShort(setting(props, name, "replication.factor", "3"));
+            Map<String, String> configs = topicConfigs(props, name);
+            TopicDescription description = existing.get(name);
+            if (description == null) {
+                newTopics.add(new NewTopic(name, partitions, replicationFactor).configs(configs));
+                continue;
+            }
+            int currentPartitions = description.partitions().size();
+            if (partitions > currentPartitions) {
+                newPartitions.put(name, NewPartitions.increaseTo(partitions));
+            } else if (partitions < currentPartitions) {
+                System.out.printf("Topic %s has %d partitions, can't reduce to %d %n", name, currentPartitions, partitions);
+            }
+            if (!configs.isEmpty()) {
+                configUpdates.put(new ConfigResource(ConfigResource.Type.TOPIC, name), configs.entrySet().stream()
+                        .map(entry -> new AlterConfigOp(new ConfigEntry(entry.getKey(), entry.getValue()), AlterConfigOp.OpType.SET))
+                        .collect(Collectors.toList()));
+            }
+        }
+
+        var pending = new ArrayList<KafkaFuture<Void>>();
+        if (!newTopics.isEmpty()) {
+            System.out.printf("Creating topics %s %n", newTopics);
+            pending.add(admin.createTopics(newTopics).all());
+        }
+        if (!newPartitions.isEmpty()) {
+            System.out.printf("Increasing partitions %s %n", newPartitions);
+            pending.add(admin.createPartitions(newPartitions).all());
+        }
+        if (!configUpdates.isEmpty()) {
+            System.out.printf("Updating configs of %s %n", configUpdates.keySet());
+            pending.add(admin.incrementalAlterConfigs(configUpdates).all());
+        }
+        KafkaFuture.allOf(pending.toArray(new KafkaFuture[0])).get();
+    }
+
+    private static Map<String, String> topicConfigs(final Properties props, final String topic) {
+        var configs = new HashMap<String, String>();
+        for (String config : TOPIC_CONFIGS) {
+            String value = setting(props, topic, config, null);
+            if (value != null) {
+                configs.put(config, value);
+            }
         }
+        return configs;
+    }
+
+    private static String setting(final Properties props, final String topic, final String setting, final String defaultValue) {
+        return props.getProperty("topic." + topic + "." + setting,
+                props.getProperty("topic.default." + setting, defaultValue));
     }
 }
@@ -0,0 +1,155 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerInfoAggregatorTest {
+
+    private static final String CUSTOMER = "customer-1";
+
+    @Test
+    void unboundedShouldKeepEveryEntry() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.UNBOUNDED, 3);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        for (int i = 0; i < 5; i++) {
+            aggregator.addPageView(customerInfo, pageView("url-" + i));
+        }
+
+        assertEquals(List.of("url-0", "url-1", "url-2", "url-3", "url-4"), customerInfo.getPageViews());
+        assertEquals(5, customerInfo.getPageViewCount());
+    }
+
+    @Test
+    void recentShouldKeepTheLastEntries() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.RECENT, 3);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        for (int i = 0; i < 5; i++) {
+            aggregator.addPageView(customerInfo, pageView("url-" + i));
+            aggregator.addPurchase(customerInfo, purchase("item-" + i, 1.5));
+        }
+
+        assertEquals(List.of("url-2", "url-3", "url-4"), customerInfo.getPageViews());
+        assertEquals(List.of("item-2", "item-3", "item-4"), customerInfo.getItems());
+        assertEquals(5, customerInfo.getPageViewCount());
+        assertEquals(5, customerInfo.getPurchaseCount());
+        assertEquals(7.5, customerInfo.getPurchaseTotal(), 1e-9);
+    }
+
+    @Test
+    void distinctShouldCountRepeatedEntries() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.DISTINCT, 3);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        aggregator.addPageView(customerInfo, pageView("a"));
+        aggregator.addPageView(customerInfo, pageView("b"));
+        aggregator.addPageView(customerInfo, pageView("a"));
+
+        assertEquals(Map.of("a", 2L, "b", 1L), customerInfo.getPageViewCounts());
+        assertEquals(List.of("a", "b"), customerInfo.getPageViews());
+        assertEquals(3, customerInfo.getPageViewCount());
+    }
+
+    @Test
+    void distinctShouldEvictTheLeastFrequentEntryAtCapacity() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.DISTINCT, 3);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        for (String url : List.of("a", "a", "a", "b", "b", "c", "d")) {
+            aggregator.addPageView(customerInfo, pageView(url));
+        }
+
+        // c was the least frequent, d takes its place and inherits its count
+        assertEquals(Map.of("a", 3L, "b", 2L, "d", 2L), customerInfo.getPageViewCounts());
+        assertEquals(List.of("a", "b", "d"), customerInfo.getPageViews());
+    }
+
+    @Test
+    void distinctShouldNotEvictTheNewestEntryNext() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.DISTINCT, 3);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        for (String url : List.of("a", "b", "c", "d", "e")) {
+            aggregator.addPageView(customerInfo, pageView(url));
+        }
+
+        // on a tie the oldest key goes, so d survives the arrival of e
+        assertEquals(List.of("c", "d", "e"), customerInfo.getPageViews());
+        assertTrue(customerInfo.getPageViewCounts().containsKey("d"));
+        assertEquals(3, customerInfo.getPageViewCounts().size());
+    }
+
+    @Test
+    void distinctShouldStayBoundedForManyKeys() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.DISTINCT, 10);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        for (int i = 0; i < 1_000; i++) {
+            aggregator.addPurchase(customerInfo, purchase("item-" + (i % 97), 1.0));
+        }
+
+        assertEquals(10, customerInfo.getItemCounts().size());
+        assertEquals(10, customerInfo.getItems().size());
+        assertEquals(1_000, customerInfo.getPurchaseCount());
+    }
+
+    @Test
+    void distinctShouldRebuildKeysWrittenWithoutOrder() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.DISTINCT, 2);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        customerInfo.getPageViewCounts().put("a", 5L);
+        customerInfo.getPageViewCounts().put("b", 1L);
+
+        aggregator.addPageView(customerInfo, pageView("c"));
+
+        assertEquals(Map.of("a", 5L, "c", 2L), customerInfo.getPageViewCounts());
+        assertEquals(List.of("a", "c"), customerInfo.getPageViews());
+    }
+
+    @Test
+    void totalsShouldOnlyKeepCounts() {
+        CustomerInfoAggregator aggregator = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.TOTALS, 3);
+        CustomerInfo customerInfo = aggregator.newCustomerInfo(CUSTOMER);
+        for (int i = 0; i < 5; i++) {
+            aggregator.addPageView(customerInfo, pageView("url-" + i));
+            aggregator.addPurchase(customerInfo, purchase("item-" + i, 2.0));
+        }
+
+        assertTrue(customerInfo.getPageViews().isEmpty());
+        assertTrue(customerInfo.getItems().isEmpty());
+        assertTrue(customerInfo.getPageViewCounts().isEmpty());
+        assertTrue(customerInfo.getItemCounts().isEmpty());
+        assertEquals(5, customerInfo.getPageViewCount());
+        assertEquals(5, customerInfo.getPurchaseCount());
+        assertEquals(10.0, customerInfo.getPurchaseTotal(), 1e-9);
+    }
+
+    @Test
+    void shouldReadTheModeRegardlessOfCase() {
+        Properties properties = new Properties();
+        properties.put(CustomerInfoAggregator.AGGREGATE_MODE_CONFIG, "distinct");
+        properties.put(CustomerInfoAggregator.MAX_ENTRIES_CONFIG, "4");
+
+        assertEquals(CustomerInfoAggregator.Mode.DISTINCT, CustomerInfoAggregator.fromProperties(properties).mode());
+        assertEquals(CustomerInfoAggregator.Mode.UNBOUNDED, CustomerInfoAggregator.fromProperties(new Properties()).mode());
+    }
+
+    @Test
+    void shouldRejectMaxEntriesBelowOne() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CustomerInfoAggregator(CustomerInfoAggregator.Mode.RECENT, 0));
+    }
+
+    private static PageView pageView(String url) {
+        return PageView.newBuilder().setUrl(url).setIsSpecial(false).setCustomerId(CUSTOMER).build();
+    }
+
+    private static Purchase purchase(String item, double amount) {
+        return Purchase.newBuilder().setItem(item).setAmount(amount).setCustomerId(CUSTOMER).build();
+    }
+}
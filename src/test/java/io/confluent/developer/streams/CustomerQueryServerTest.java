@@ -0,0 +1,41 @@
+package io.confluent.developer.streams;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.kafka.streams.KeyValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerQueryServerTest {
+
+    @Test
+    void shouldReadBackEscapedEntries() throws JsonProcessingException {
+        Map<String, String> entries = Map.of(
+                "a\"b", "{\"customer_id\":\"a\\\"b\",\"items\":[]}",
+                "line\nbreak\t\\", "{}",
+                "comma,\nnext", "{\"page_views\":[\"/a\",\"/b\"]}");
+
+        assertEquals(entries, CustomerQueryServer.parseEntries(CustomerQueryServer.entriesJson(entries)));
+    }
+
+    @Test
+    void shouldReadAnEmptyObject() throws JsonProcessingException {
+        assertEquals("{}", CustomerQueryServer.entriesJson(Map.of()));
+        assertTrue(CustomerQueryServer.parseEntries("{}").isEmpty());
+    }
+
+    @Test
+    void shouldKeepTheSmallestKeysWhateverTheIterationOrder() {
+        // two partitions, each in key order, iterated one after the other
+        List<KeyValue<String, Integer>> entries = List.of(
+                KeyValue.pair("c", 3), KeyValue.pair("e", 5), KeyValue.pair("f", 6),
+                KeyValue.pair("a", 1), KeyValue.pair("b", 2), KeyValue.pair("d", 4));
+
+        assertEquals(Map.of("a", 1, "b", 2, "c", 3), CustomerQueryServer.smallestKeys(entries.iterator(), 3));
+        assertEquals(6, CustomerQueryServer.smallestKeys(entries.iterator(), 10).size());
+    }
+}
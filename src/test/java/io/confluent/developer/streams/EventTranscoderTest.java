@@ -0,0 +1,106 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerEvent;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.streams.EventTranscoder.Format;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventTranscoderTest {
+
+    private static final Purchase AVRO_PURCHASE = Purchase.newBuilder()
+            .setItem("book").setAmount(12.5).setCustomerId("customer-1").build();
+    private static final PageView AVRO_PAGE_VIEW = PageView.newBuilder()
+            .setUrl("/home").setIsSpecial(true).setCustomerId("customer-2").build();
+    private static final io.confluent.developer.proto.CustomerEvent PROTO_PURCHASE =
+            io.confluent.developer.proto.CustomerEvent.newBuilder()
+                    .setId("customer-1")
+                    .setPurchase(io.confluent.developer.proto.Purchase.newBuilder()
+                            .setItem("book").setAmount(12.5).setCustomerId("customer-1"))
+                    .build();
+    private static final io.confluent.developer.proto.CustomerEvent PROTO_PAGE_VIEW =
+            io.confluent.developer.proto.CustomerEvent.newBuilder()
+                    .setId("customer-2")
+                    .setPageView(io.confluent.developer.proto.PageView.newBuilder()
+                            .setUrl("/home").setIsSpecial(true).setCustomerId("customer-2"))
+                    .build();
+
+    @Test
+    void shouldParseFormatNames() {
+        assertEquals(Format.AVRO_WRAPPED, Format.of(" avro-wrapped "));
+        assertEquals(Format.PROTO, Format.of("proto"));
+        assertThrows(IllegalArgumentException.class, () -> Format.of("xml"));
+    }
+
+    @Test
+    void shouldRejectTheSameSourceAndTarget() {
+        for (Format format : Format.values()) {
+            assertThrows(IllegalArgumentException.class, () -> EventTranscoder.transcoder(format, format));
+        }
+    }
+
+    @Test
+    void shouldMapProtoToJson() {
+        Function<Object, Object> transcoder = EventTranscoder.transcoder(Format.PROTO, Format.JSON);
+
+        io.confluent.developer.json.Purchase purchase =
+                assertInstanceOf(io.confluent.developer.json.Purchase.class, transcoder.apply(PROTO_PURCHASE));
+        assertEquals("book", purchase.getItem());
+        assertEquals(12.5, purchase.getAmount());
+        assertEquals("customer-1", purchase.getCustomerId());
+
+        io.confluent.developer.json.PageView pageView =
+                assertInstanceOf(io.confluent.developer.json.PageView.class, transcoder.apply(PROTO_PAGE_VIEW));
+        assertEquals("/home", pageView.getUrl());
+        assertEquals(Boolean.TRUE, pageView.getIsSpecial());
+        assertEquals("customer-2", pageView.getCustomerId());
+    }
+
+    @Test
+    void shouldMapJsonToProto() {
+        Function<Object, Object> transcoder = EventTranscoder.transcoder(Format.JSON, Format.PROTO);
+
+        assertEquals(PROTO_PURCHASE, transcoder.apply(new io.confluent.developer.json.Purchase()
+                .withItem("book").withAmount(12.5).withCustomerId("customer-1")));
+        assertEquals(PROTO_PAGE_VIEW, transcoder.apply(new io.confluent.developer.json.PageView()
+                .withUrl("/home").withIsSpecial(true).withCustomerId("customer-2")));
+    }
+
+    @Test
+    void shouldFillMissingJsonFieldsWithDefaults() {
+        Object purchase = EventTranscoder.transcoder(Format.JSON, Format.AVRO)
+                .apply(new io.confluent.developer.json.Purchase().withItem("book"));
+
+        assertEquals(Purchase.newBuilder().setItem("book").setAmount(0.0).setCustomerId("").build(), purchase);
+    }
+
+    @Test
+    void shouldMapBetweenProtoAndAvro() {
+        assertEquals(AVRO_PURCHASE, EventTranscoder.transcoder(Format.PROTO, Format.AVRO).apply(PROTO_PURCHASE));
+        assertEquals(PROTO_PAGE_VIEW, EventTranscoder.transcoder(Format.AVRO, Format.PROTO).apply(AVRO_PAGE_VIEW));
+    }
+
+    @Test
+    void shouldWrapAndUnwrapAvroEvents() {
+        CustomerEvent wrapped = CustomerEvent.newBuilder().setAction(AVRO_PURCHASE).setId("customer-1").build();
+
+        assertEquals(wrapped, EventTranscoder.transcoder(Format.AVRO, Format.AVRO_WRAPPED).apply(AVRO_PURCHASE));
+        assertEquals(wrapped, EventTranscoder.transcoder(Format.PROTO, Format.AVRO_WRAPPED).apply(PROTO_PURCHASE));
+        assertEquals(AVRO_PURCHASE, EventTranscoder.transcoder(Format.AVRO_WRAPPED, Format.AVRO).apply(wrapped));
+        assertEquals(PROTO_PURCHASE, EventTranscoder.transcoder(Format.AVRO_WRAPPED, Format.PROTO).apply(wrapped));
+    }
+
+    @Test
+    void shouldMapUnknownEventsToNull() {
+        assertNull(EventTranscoder.transcoder(Format.PROTO, Format.JSON)
+                .apply(io.confluent.developer.proto.CustomerEvent.getDefaultInstance()));
+        assertNull(EventTranscoder.transcoder(Format.JSON, Format.AVRO_WRAPPED).apply("not an event"));
+    }
+}
@@ -0,0 +1,214 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerEvent;
+import io.confluent.developer.avro.CustomerInfo;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the customer topology without a commit in between updates, so anything not written to the store
+ * while the event is processed shows up as a missing or stale aggregate.
+ */
+class EventValueTransformerSupplierTest {
+
+    private static final String SCHEMA_REGISTRY_SCOPE = "customer-processor-test";
+    private static final String INPUT_TOPIC = "avro-events";
+    private static final String OUTPUT_TOPIC = "output";
+
+    private Properties properties;
+    private SpecificAvroSerde<SpecificRecord> eventSerde;
+    private SpecificAvroSerde<CustomerInfo> customerSerde;
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, SpecificRecord> input;
+    private TestOutputTopic<String, CustomerInfo> output;
+    private KeyValueStore<String, CustomerInfo> store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "customer-processor-test");
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        properties.put("schema.registry.url", "mock://" + SCHEMA_REGISTRY_SCOPE);
+        properties.put("streams.input.topic.name", INPUT_TOPIC);
+        properties.put("streams.output.topic.name", OUTPUT_TOPIC);
+        properties.put(MultiEventKafkaStreamsExample.PRINT_OUTPUT_CONFIG, "false");
+        properties.put(CustomerInfoAggregator.AGGREGATE_MODE_CONFIG, "recent");
+        properties.put(CustomerInfoAggregator.MAX_ENTRIES_CONFIG, "2");
+        properties.put(CustomerStores.STORE_TYPE_CONFIG, "in_memory");
+        CustomerStores.configure(properties);
+
+        driver = new TopologyTestDriver(MultiEventKafkaStreamsExample.buildTopology(properties), properties);
+
+        Map<String, Object> serdeConfigs = new HashMap<>();
+        serdeConfigs.put("schema.registry.url", "mock://" + SCHEMA_REGISTRY_SCOPE);
+        eventSerde = MultiEventKafkaStreamsExample.getSpecificAvroSerde(serdeConfigs);
+        customerSerde = MultiEventKafkaStreamsExample.getSpecificAvroSerde(serdeConfigs);
+        input = driver.createInputTopic(INPUT_TOPIC, new StringSerializer(), eventSerde.serializer());
+        output = driver.createOutputTopic(OUTPUT_TOPIC, new StringDeserializer(), customerSerde.deserializer());
+        store = driver.getKeyValueStore(MultiEventKafkaStreamsExample.CUSTOMER_STORE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+        MockSchemaRegistry.dropScope(SCHEMA_REGISTRY_SCOPE);
+    }
+
+    @Test
+    void shouldStoreAndForwardEveryUpdateRightAway() {
+        input.pipeInput("customer-1", purchase("customer-1", "book", 10.0));
+
+        CustomerInfo afterPurchase = store.get("customer-1");
+        assertEquals(List.of("book"), afterPurchase.getItems());
+        assertEquals(List.of(KeyValue.pair("customer-1", afterPurchase)), output.readKeyValuesToList());
+
+        input.pipeInput("customer-1", pageView("customer-1", "/home"));
+        input.pipeInput("customer-1", purchase("customer-1", "pen", 2.5));
+
+        CustomerInfo latest = store.get("customer-1");
+        assertEquals(List.of("book", "pen"), latest.getItems());
+        assertEquals(List.of("/home"), latest.getPageViews());
+        assertEquals(2, latest.getPurchaseCount());
+        assertEquals(12.5, latest.getPurchaseTotal(), 1e-9);
+
+        List<KeyValue<String, CustomerInfo>> updates = output.readKeyValuesToList();
+        assertEquals(2, updates.size());
+        assertEquals(latest, updates.get(1).value);
+    }
+
+    @Test
+    void shouldKeepCustomersApart() {
+        input.pipeInput("customer-1", pageView("customer-1", "/home"));
+        input.pipeInput("customer-2", pageView("customer-2", "/cart"));
+
+        assertEquals(List.of("/home"), store.get("customer-1").getPageViews());
+        assertEquals(List.of("/cart"), store.get("customer-2").getPageViews());
+        assertNull(store.get("customer-3"));
+    }
+
+    @Test
+    void shouldApplyTheConfiguredAggregateMode() {
+        for (String url : List.of("/a", "/b", "/c")) {
+            input.pipeInput("customer-1", pageView("customer-1", url));
+        }
+
+        CustomerInfo customerInfo = store.get("customer-1");
+        assertEquals(List.of("/b", "/c"), customerInfo.getPageViews());
+        assertEquals(3, customerInfo.getPageViewCount());
+    }
+
+    @Test
+    void shouldForwardEachUpdatedCustomerOncePerEmitInterval() {
+        driver.close();
+        properties.put(EventValueTransformerSupplier.EMIT_INTERVAL_CONFIG, "1000");
+        driver = new TopologyTestDriver(MultiEventKafkaStreamsExample.buildTopology(properties), properties);
+        input = driver.createInputTopic(INPUT_TOPIC, new StringSerializer(), eventSerde.serializer());
+        output = driver.createOutputTopic(OUTPUT_TOPIC, new StringDeserializer(), customerSerde.deserializer());
+        store = driver.getKeyValueStore(MultiEventKafkaStreamsExample.CUSTOMER_STORE);
+
+        input.pipeInput("customer-1", purchase("customer-1", "book", 10.0));
+        input.pipeInput("customer-1", purchase("customer-1", "pen", 2.5));
+        input.pipeInput("customer-2", pageView("customer-2", "/cart"));
+
+        assertEquals(List.of("book", "pen"), store.get("customer-1").getItems());
+        assertTrue(output.isEmpty());
+
+        driver.advanceWallClockTime(Duration.ofSeconds(1));
+
+        assertEquals(List.of(
+                KeyValue.pair("customer-1", store.get("customer-1")),
+                KeyValue.pair("customer-2", store.get("customer-2"))), output.readKeyValuesToList());
+        KeyValueStore<String, Long> dirty = driver.getKeyValueStore(MultiEventKafkaStreamsExample.CUSTOMER_STORE + "-dirty");
+        assertNull(dirty.get("customer-1"));
+        assertNull(dirty.get("customer-2"));
+
+        driver.advanceWallClockTime(Duration.ofSeconds(1));
+        assertTrue(output.isEmpty());
+    }
+
+    @Test
+    void shouldKeepTheStoreUnchangedAndSkipTheEventWhenAggregationFails() {
+        CustomerInfoAggregator failing = new CustomerInfoAggregator(CustomerInfoAggregator.Mode.RECENT, 5) {
+            @Override
+            public void addPurchase(CustomerInfo customerInfo, Purchase purchase) {
+                super.addPurchase(customerInfo, purchase);
+                if ("poison".equals(purchase.getItem())) {
+                    throw new IllegalStateException("poisoned after updating the aggregate");
+                }
+            }
+        };
+        String storeName = "failing_store";
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.inMemoryKeyValueStore(storeName), Serdes.String(), customerSerde));
+        builder.stream(INPUT_TOPIC, Consumed.with(Serdes.String(), eventSerde))
+                .process(new EventValueTransformerSupplier(storeName, failing), storeName)
+                .to(OUTPUT_TOPIC, Produced.with(Serdes.String(), customerSerde));
+
+        try (TopologyTestDriver failingDriver = new TopologyTestDriver(builder.build(), properties)) {
+            TestInputTopic<String, SpecificRecord> failingInput =
+                    failingDriver.createInputTopic(INPUT_TOPIC, new StringSerializer(), eventSerde.serializer());
+            TestOutputTopic<String, CustomerInfo> failingOutput =
+                    failingDriver.createOutputTopic(OUTPUT_TOPIC, new StringDeserializer(), customerSerde.deserializer());
+
+            failingInput.pipeInput("customer-1", purchase("customer-1", "book", 10.0));
+            failingInput.pipeInput("customer-1", purchase("customer-1", "poison", 1.0));
+
+            CustomerInfo stored = failingDriver.<String, CustomerInfo>getKeyValueStore(storeName).get("customer-1");
+            assertEquals(List.of("book"), stored.getItems());
+            assertEquals(1, stored.getPurchaseCount());
+            assertEquals(1, failingOutput.readKeyValuesToList().size());
+        }
+    }
+
+    @Test
+    void shouldFailToDeserializeEventsWithoutHandler() {
+        Deserializer<SpecificRecord> deserializer = new EventValueTransformerSupplier(MultiEventKafkaStreamsExample.CUSTOMER_STORE,
+                CustomerInfoAggregator.fromProperties(properties)).rejectingUnhandledEvents(eventSerde.deserializer());
+        Purchase purchase = purchase("customer-1", "book", 10.0);
+        CustomerEvent unhandled = CustomerEvent.newBuilder().setId("customer-1").setAction(purchase).build();
+
+        assertEquals(purchase, deserializer.deserialize(INPUT_TOPIC, eventSerde.serializer().serialize(INPUT_TOPIC, purchase)));
+        byte[] unhandledBytes = eventSerde.serializer().serialize("wrapped-events", unhandled);
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("wrapped-events", unhandledBytes));
+    }
+
+    private static Purchase purchase(String customerId, String item, double amount) {
+        return Purchase.newBuilder().setCustomerId(customerId).setItem(item).setAmount(amount).build();
+    }
+
+    private static PageView pageView(String customerId, String url) {
+        return PageView.newBuilder().setCustomerId(customerId).setUrl(url).setIsSpecial(false).build();
+    }
+}
@@ -0,0 +1,141 @@
+package io.confluent.developer.streams;
+
+import io.confluent.developer.avro.CustomerInfo;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pushes a large number of generated events through the customer topology with {@link TopologyTestDriver}
+ * and a {@code mock://} schema registry, then reports records/sec, the store size and the output bytes.
+ * No cluster is needed, so a change in the per-event cost of {@link EventValueTransformerSupplier} shows up
+ * on any machine.  The default size keeps it quick enough for {@code ./gradlew test}; {@code ./gradlew
+ * throughputHarness} runs it with a million events.  Tune the run with {@code -Dharness.events},
+ * {@code -Dharness.customers} and {@code -Dharness.aggregate.mode}.
+ */
+class EventValueTransformerThroughputTest {
+
+    private static final String SCHEMA_REGISTRY_SCOPE = "throughput-harness";
+    private static final String INPUT_TOPIC = "avro-events";
+    private static final String OUTPUT_TOPIC = "output";
+    private static final int DRAIN_EVERY = 10_000;
+    private static final int MAX_ENTRIES = 10;
+
+    private final int numEvents = Integer.getInteger("harness.events", 20_000);
+    private final int numCustomers = Integer.getInteger("harness.customers", 10_000);
+    private final String aggregateMode = System.getProperty("harness.aggregate.mode", "recent");
+
+    private TopologyTestDriver driver;
+    private SpecificAvroSerde<SpecificRecord> eventSerde;
+    private SpecificAvroSerde<CustomerInfo> customerSerde;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "throughput-harness");
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        properties.put("schema.registry.url", "mock://" + SCHEMA_REGISTRY_SCOPE);
+        properties.put("streams.input.topic.name", INPUT_TOPIC);
+        properties.put("streams.output.topic.name", OUTPUT_TOPIC);
+        properties.put(MultiEventKafkaStreamsExample.PRINT_OUTPUT_CONFIG, "false");
+        properties.put(CustomerInfoAggregator.AGGREGATE_MODE_CONFIG, aggregateMode);
+        properties.put(CustomerInfoAggregator.MAX_ENTRIES_CONFIG, Integer.toString(MAX_ENTRIES));
+        properties.put(CustomerStores.STORE_TYPE_CONFIG, "in_memory");
+        CustomerStores.configure(properties);
+
+        driver = new TopologyTestDriver(MultiEventKafkaStreamsExample.buildTopology(properties), properties);
+
+        Map<String, Object> serdeConfigs = new HashMap<>();
+        serdeConfigs.put("schema.registry.url", "mock://" + SCHEMA_REGISTRY_SCOPE);
+        eventSerde = MultiEventKafkaStreamsExample.getSpecificAvroSerde(serdeConfigs);
+        customerSerde = MultiEventKafkaStreamsExample.getSpecificAvroSerde(serdeConfigs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+        MockSchemaRegistry.dropScope(SCHEMA_REGISTRY_SCOPE);
+    }
+
+    @Test
+    void shouldReportPerEventCostOfCustomerProcessor() {
+        TestInputTopic<String, SpecificRecord> input =
+                driver.createInputTopic(INPUT_TOPIC, new StringSerializer(), eventSerde.serializer());
+        TestOutputTopic<String, byte[]> output =
+                driver.createOutputTopic(OUTPUT_TOPIC, new StringDeserializer(), new ByteArrayDeserializer());
+
+        Random random = new Random(42);
+        long outputRecords = 0;
+        long outputBytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < numEvents; i++) {
+            String customerId = "customer-" + random.nextInt(numCustomers);
+            SpecificRecord event = random.nextInt(5) == 0
+                    ? Purchase.newBuilder().setCustomerId(customerId).setItem("item-" + random.nextInt(1000)).setAmount(random.nextInt(50_000) / 100.0).build()
+                    : PageView.newBuilder().setCustomerId(customerId).setUrl("https://acme.commerce/" + random.nextInt(1000)).setIsSpecial(random.nextBoolean()).build();
+            input.pipeInput(customerId, event);
+            if (i % DRAIN_EVERY == 0) {
+                for (KeyValue<String, byte[]> record : output.readKeyValuesToList()) {
+                    outputRecords++;
+                    outputBytes += record.value.length;
+                }
+            }
+        }
+        for (KeyValue<String, byte[]> record : output.readKeyValuesToList()) {
+            outputRecords++;
+            outputBytes += record.value.length;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        KeyValueStore<String, CustomerInfo> store = driver.getKeyValueStore("the_store");
+        long storeEntries = 0;
+        long storeBytes = 0;
+        int largestHistory = 0;
+        try (KeyValueIterator<String, CustomerInfo> iterator = store.all()) {
+            while (iterator.hasNext()) {
+                CustomerInfo customerInfo = iterator.next().value;
+                storeEntries++;
+                storeBytes += customerSerde.serializer().serialize(OUTPUT_TOPIC, customerInfo).length;
+                largestHistory = Math.max(largestHistory, Math.max(
+                        Math.max(customerInfo.getPageViews().size(), customerInfo.getItems().size()),
+                        Math.max(customerInfo.getPageViewCounts().size(), customerInfo.getItemCounts().size())));
+            }
+        }
+
+        System.out.printf("[%s] %d events for %d customers in %.2f s, %.0f records/sec%n",
+                aggregateMode, numEvents, numCustomers, elapsedNanos / 1e9, numEvents / (elapsedNanos / 1e9));
+        System.out.printf("[%s] store: %d entries, %d bytes (%.1f bytes/customer)%n",
+                aggregateMode, storeEntries, storeBytes, storeBytes / (double) Math.max(storeEntries, 1));
+        System.out.printf("[%s] output: %d records, %d bytes (%.1f bytes/record)%n",
+                aggregateMode, outputRecords, outputBytes, outputBytes / (double) Math.max(outputRecords, 1));
+
+        assertEquals(numEvents, outputRecords);
+        assertTrue(storeEntries <= numCustomers);
+        if (!"unbounded".equals(aggregateMode)) {
+            assertTrue(largestHistory <= MAX_ENTRIES, "bounded aggregate modes should cap the history, found " + largestHistory);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.confluent.developer.streams;
+
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.streams.errors.StreamsException;
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ThreadReplacementHandlerTest {
+
+    @Test
+    void shouldReplaceThreadsOnTransientErrorsUpToTheLimit() {
+        Properties properties = new Properties();
+        properties.put(ThreadReplacementHandler.MAX_REPLACEMENTS_CONFIG, "2");
+        ThreadReplacementHandler handler = new ThreadReplacementHandler(properties);
+        StreamsException transientError = new StreamsException(new TimeoutException("fetch timed out"));
+
+        assertEquals(StreamThreadExceptionResponse.REPLACE_THREAD, handler.handle(transientError));
+        assertEquals(StreamThreadExceptionResponse.REPLACE_THREAD, handler.handle(transientError));
+        assertEquals(StreamThreadExceptionResponse.SHUTDOWN_CLIENT, handler.handle(transientError));
+    }
+
+    @Test
+    void shouldShutDownOnOtherErrors() {
+        ThreadReplacementHandler handler = new ThreadReplacementHandler(new Properties());
+
+        assertEquals(StreamThreadExceptionResponse.SHUTDOWN_CLIENT,
+                handler.handle(new StreamsException(new IllegalStateException("bug"))));
+        assertEquals(StreamThreadExceptionResponse.SHUTDOWN_CLIENT, handler.handle(new OutOfMemoryError()));
+    }
+}
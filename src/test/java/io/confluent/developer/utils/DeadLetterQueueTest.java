@@ -0,0 +1,72 @@
+package io.confluent.developer.utils;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeadLetterQueueTest {
+
+    @Test
+    void shouldOnlyPassConnectionAndProducerSettingsToTheProducer() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("bootstrap.servers", "broker:9092");
+        configs.put("security.protocol", "SASL_SSL");
+        configs.put("sasl.mechanism", "PLAIN");
+        configs.put("sasl.jaas.config", "jaas");
+        configs.put("ssl.endpoint.identification.algorithm", "https");
+        configs.put("producer.compression.type", "lz4");
+        configs.put("processing.guarantee", "exactly_once_v2");
+        configs.put("application.id", "customer-app");
+        configs.put("transactional.id", "tx");
+        configs.put("group.id", "consumers");
+        configs.put("schema.registry.url", "http://registry:8081");
+
+        assertEquals(Map.of(
+                "bootstrap.servers", "broker:9092",
+                "security.protocol", "SASL_SSL",
+                "sasl.mechanism", "PLAIN",
+                "sasl.jaas.config", "jaas",
+                "ssl.endpoint.identification.algorithm", "https",
+                "compression.type", "lz4"), DeadLetterQueue.producerConfigs(configs));
+    }
+
+    @Test
+    void shouldReadTheSchemaIdOfWireFormatValues() {
+        assertEquals(258, DeadLetterQueue.schemaId(new byte[] {0, 0, 0, 1, 2, 42}));
+        assertNull(DeadLetterQueue.schemaId(new byte[] {1, 0, 0, 1, 2, 42}));
+        assertNull(DeadLetterQueue.schemaId(new byte[] {0, 0, 0}));
+        assertNull(DeadLetterQueue.schemaId(null));
+    }
+
+    @Test
+    void shouldReturnOnceTheDeadLetterIsAcknowledged() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        DeadLetterQueue deadLetters = new DeadLetterQueue(producer, "dead-letters");
+
+        deadLetters.send("events", 1, 42L, null, new byte[] {0, 0, 0, 1, 2, 42}, null, new IllegalStateException("bad"));
+
+        assertEquals(1, deadLetters.sent());
+        assertEquals("42", new String(producer.history().get(0).headers().lastHeader(DeadLetterQueue.SOURCE_OFFSET_HEADER).value(),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldThrowWhenTheDeadLetterCantBeSent() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        producer.sendException = new KafkaException("broker unavailable");
+        DeadLetterQueue deadLetters = new DeadLetterQueue(producer, "dead-letters");
+
+        assertThrows(KafkaException.class,
+                () -> deadLetters.send("events", 1, 42L, null, new byte[] {1}, null, new IllegalStateException("bad")));
+        assertEquals(0, deadLetters.sent());
+    }
+}
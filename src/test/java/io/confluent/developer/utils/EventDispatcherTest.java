@@ -0,0 +1,106 @@
+package io.confluent.developer.utils;
+
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.developer.proto.CustomerEvent;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventDispatcherTest {
+
+    @Test
+    void shouldRouteAvroEventsBySchemaName() {
+        EventDispatcher<SpecificRecord, List<String>> dispatcher = EventDispatcher.<SpecificRecord, List<String>>avro()
+                .register(PageView.SCHEMA$.getFullName(), PageView.class, (pageView, seen) -> seen.add("page view " + pageView.getUrl()))
+                .register(Purchase.SCHEMA$.getFullName(), Purchase.class, (purchase, seen) -> seen.add("purchase " + purchase.getItem()))
+                .build();
+        List<String> seen = new ArrayList<>();
+
+        dispatcher.dispatch(PageView.newBuilder().setUrl("/home").setIsSpecial(false).setCustomerId("c").build(), seen);
+        dispatcher.dispatch(Purchase.newBuilder().setItem("book").setAmount(1.0).setCustomerId("c").build(), seen);
+
+        assertEquals(List.of("page view /home", "purchase book"), seen);
+    }
+
+    @Test
+    void shouldRouteJsonSchemaEventsByClassName() {
+        EventDispatcher<Object, List<String>> dispatcher = EventDispatcher.<List<String>>jsonSchema()
+                .register(io.confluent.developer.json.Purchase.class.getName(), io.confluent.developer.json.Purchase.class,
+                        (purchase, seen) -> seen.add("purchase " + purchase.getItem()))
+                .build();
+        List<String> seen = new ArrayList<>();
+
+        dispatcher.dispatch(new io.confluent.developer.json.Purchase().withItem("book"), seen);
+
+        assertEquals(List.of("purchase book"), seen);
+    }
+
+    @Test
+    void shouldRouteProtobufEventsByActionCase() {
+        EventDispatcher<CustomerEvent, List<String>> dispatcher = EventDispatcher.<List<String>>protobuf()
+                .register(CustomerEvent.ActionCase.PAGE_VIEW, (event, seen) -> seen.add("page view " + event.getPageView().getUrl()))
+                .register(CustomerEvent.ActionCase.PURCHASE, (event, seen) -> seen.add("purchase " + event.getPurchase().getItem()))
+                .build();
+        List<String> seen = new ArrayList<>();
+
+        dispatcher.dispatch(CustomerEvent.newBuilder()
+                .setPurchase(io.confluent.developer.proto.Purchase.newBuilder().setItem("book"))
+                .build(), seen);
+
+        assertEquals(List.of("purchase book"), seen);
+    }
+
+    @Test
+    void shouldIgnoreUnknownEventsByDefault() {
+        EventDispatcher<CustomerEvent, List<String>> dispatcher = EventDispatcher.<List<String>>protobuf()
+                .register(CustomerEvent.ActionCase.PURCHASE, (event, seen) -> seen.add("purchase"))
+                .build();
+        List<String> seen = new ArrayList<>();
+
+        dispatcher.dispatch(CustomerEvent.getDefaultInstance(), seen);
+
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test
+    void shouldPassUnknownEventsToTheUnknownHandler() {
+        EventDispatcher<CustomerEvent, List<String>> dispatcher = EventDispatcher.<List<String>>protobuf()
+                .register(CustomerEvent.ActionCase.PURCHASE, (event, seen) -> seen.add("purchase"))
+                .onUnknown((event, seen) -> seen.add("unknown " + event.getActionCase()))
+                .build();
+        List<String> seen = new ArrayList<>();
+
+        dispatcher.dispatch(CustomerEvent.getDefaultInstance(), seen);
+
+        assertEquals(List.of("unknown ACTION_NOT_SET"), seen);
+    }
+
+    @Test
+    void shouldRejectASecondHandlerForTheSameKey() {
+        EventDispatcher.Builder<CustomerEvent, List<String>> builder = EventDispatcher.<List<String>>protobuf()
+                .register(CustomerEvent.ActionCase.PURCHASE, (event, seen) -> { });
+
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.register(CustomerEvent.ActionCase.PURCHASE, (event, seen) -> { }));
+    }
+
+    @Test
+    void shouldNotChangeAfterBuild() {
+        EventDispatcher.Builder<CustomerEvent, List<String>> builder = EventDispatcher.<List<String>>protobuf()
+                .register(CustomerEvent.ActionCase.PURCHASE, (event, seen) -> { });
+        EventDispatcher<CustomerEvent, List<String>> dispatcher = builder.build();
+
+        builder.register(CustomerEvent.ActionCase.PAGE_VIEW, (event, seen) -> { });
+
+        assertTrue(dispatcher.handles(CustomerEvent.ActionCase.PURCHASE));
+        assertFalse(dispatcher.handles(CustomerEvent.ActionCase.PAGE_VIEW));
+    }
+}
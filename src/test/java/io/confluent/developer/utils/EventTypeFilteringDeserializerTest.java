@@ -0,0 +1,121 @@
+package io.confluent.developer.utils;
+
+import io.confluent.developer.avro.CustomerEvent;
+import io.confluent.developer.avro.PageView;
+import io.confluent.developer.avro.Purchase;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchemaProvider;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.entities.SchemaReference;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventTypeFilteringDeserializerTest {
+
+    private static final String UNION_TOPIC = "avro-events";
+    private static final String WRAPPED_TOPIC = "avro-events-wrapped";
+
+    private SchemaRegistryClient client;
+    private Map<String, Object> configs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = new MockSchemaRegistryClient(List.of(new AvroSchemaProvider(), new JsonSchemaProvider()));
+        final String pageViewSchema = PageView.getClassSchema().toString();
+        final String purchaseSchema = Purchase.getClassSchema().toString();
+        client.register("page-view", new AvroSchema(pageViewSchema));
+        client.register("purchase", new AvroSchema(purchaseSchema));
+        client.register(UNION_TOPIC + "-value", new AvroSchema(
+                "[\"io.confluent.developer.avro.Purchase\", \"io.confluent.developer.avro.PageView\"]",
+                List.of(new SchemaReference(PageView.getClassSchema().getFullName(), "page-view", 1),
+                        new SchemaReference(Purchase.getClassSchema().getFullName(), "purchase", 1)),
+                Map.of(PageView.getClassSchema().getFullName(), pageViewSchema,
+                        Purchase.getClassSchema().getFullName(), purchaseSchema),
+                null));
+        configs = new HashMap<>();
+        configs.put("schema.registry.url", "mock://filtering-test");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
+    }
+
+    @Test
+    void shouldOnlyDecodeWantedUnionBranches() {
+        final byte[] purchase = unionSerializer().serialize(UNION_TOPIC, Data.avroPurchase());
+        final byte[] pageView = unionSerializer().serialize(UNION_TOPIC, Data.avroPageView());
+        final Deserializer<SpecificRecord> deserializer = filtering(Set.of(Purchase.getClassSchema().getFullName()));
+
+        assertEquals(Data.avroPurchase(), deserializer.deserialize(UNION_TOPIC, purchase));
+        assertNull(deserializer.deserialize(UNION_TOPIC, pageView));
+    }
+
+    @Test
+    void shouldFilterRecordSchemasByName() {
+        final KafkaAvroSerializer serializer = new KafkaAvroSerializer(client, configs);
+        final CustomerEvent event = CustomerEvent.newBuilder().setAction(Data.avroPurchase()).setId("vandelay1234").build();
+        final byte[] wrapped = serializer.serialize(WRAPPED_TOPIC, event);
+
+        assertNull(filtering(Set.of(Purchase.getClassSchema().getFullName())).deserialize(WRAPPED_TOPIC, wrapped));
+        assertEquals(event, filtering(Set.of(CustomerEvent.getClassSchema().getFullName())).deserialize(WRAPPED_TOPIC, wrapped));
+    }
+
+    @Test
+    void shouldFailOnNonAvroSchemaIds() throws Exception {
+        final int id = client.register("json-purchase", new JsonSchema("{\"type\": \"object\"}"));
+        final byte[] data = {0, (byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id, 0};
+
+        assertThrows(SerializationException.class,
+                () -> filtering(Set.of(Purchase.getClassSchema().getFullName())).deserialize(UNION_TOPIC, data));
+    }
+
+    @Test
+    void shouldPassThroughDataWithoutMagicByte() {
+        final EventTypeFilteringDeserializer<byte[]> deserializer =
+                new EventTypeFilteringDeserializer<>((topic, data) -> data, Set.of("anything"), client);
+        final byte[] data = {1, 2, 3, 4, 5, 6};
+
+        assertArrayEquals(data, deserializer.deserialize(UNION_TOPIC, data));
+    }
+
+    @Test
+    void shouldReadZigZagVarintUnionIndex() {
+        assertEquals(0, EventTypeFilteringDeserializer.readUnionIndex(new byte[]{0, 0, 0, 0, 1, 0x00}));
+        assertEquals(1, EventTypeFilteringDeserializer.readUnionIndex(new byte[]{0, 0, 0, 0, 1, 0x02}));
+        assertEquals(63, EventTypeFilteringDeserializer.readUnionIndex(new byte[]{0, 0, 0, 0, 1, 0x7E}));
+        // 64 zig-zags to 128, which takes two varint bytes
+        assertEquals(64, EventTypeFilteringDeserializer.readUnionIndex(new byte[]{0, 0, 0, 0, 1, (byte) 0x80, 0x01}));
+        assertEquals(-1, EventTypeFilteringDeserializer.readUnionIndex(new byte[]{0, 0, 0, 0, 1, (byte) 0x80}));
+        assertEquals(-1, EventTypeFilteringDeserializer.readUnionIndex(new byte[]{0, 0, 0, 0, 1}));
+    }
+
+    private KafkaAvroSerializer unionSerializer() {
+        final Map<String, Object> unionConfigs = new HashMap<>(configs);
+        unionConfigs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, false);
+        unionConfigs.put(KafkaAvroSerializerConfig.USE_LATEST_VERSION, true);
+        return new KafkaAvroSerializer(client, unionConfigs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Deserializer<SpecificRecord> filtering(final Set<String> wantedTypes) {
+        final Deserializer<SpecificRecord> inner = (Deserializer<SpecificRecord>) (Deserializer<?>) new KafkaAvroDeserializer(client, configs);
+        return new EventTypeFilteringDeserializer<>(inner, wantedTypes, client);
+    }
+}